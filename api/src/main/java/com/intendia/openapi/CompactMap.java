@@ -0,0 +1,60 @@
+package com.intendia.openapi;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable insertion ordered map backed by a key and a value array, without entry or table objects. Lookups are a
+ * linear scan, so it is only used for the small maps of the model, like the properties of a schema.
+ */
+final class CompactMap<V> extends AbstractMap<String, V> {
+    private final String[] keys;
+    private final Object[] values;
+
+    /** Copies {@code map}, mapping each key with {@code key} (e.g. to intern it). */
+    CompactMap(Map<String, ? extends V> map, Function<String, String> key) {
+        this.keys = new String[map.size()];
+        this.values = new Object[map.size()];
+        int i = 0;
+        for (Map.Entry<String, ? extends V> e : map.entrySet()) {
+            keys[i] = key.apply(e.getKey());
+            values[i++] = e.getValue();
+        }
+    }
+
+    @Override public int size() { return keys.length; }
+
+    @Override public boolean containsKey(Object key) { return indexOf(key) >= 0; }
+
+    @SuppressWarnings("unchecked") @Override public V get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < keys.length; i++) if (keys[i].equals(key)) return i;
+        return -1;
+    }
+
+    @Override public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            @Override public int size() { return keys.length; }
+            @Override public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<Entry<String, V>>() {
+                    int next = 0;
+                    @Override public boolean hasNext() { return next < keys.length; }
+                    @SuppressWarnings("unchecked") @Override public Entry<String, V> next() {
+                        if (next >= keys.length) throw new NoSuchElementException();
+                        int i = next++;
+                        return new SimpleImmutableEntry<>(keys[i], (V) values[i]);
+                    }
+                };
+            }
+        };
+    }
+}
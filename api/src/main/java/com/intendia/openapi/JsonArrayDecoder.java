@@ -0,0 +1,63 @@
+package com.intendia.openapi;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.Callable;
+
+/**
+ * Decodes a JSON array response element by element, as each element is requested. Only the element being decoded is
+ * held in memory, so the first element latency and the memory used do not depend on the size of the response, and a
+ * slow consumer stops reading the body instead of buffering it. The body is opened on subscription and closed on
+ * completion, error or cancellation, or as soon as the body is found not to be an array. Null elements are skipped.
+ * <p>
+ * Used by the backends of the {@code Flowable} array responses generated in streaming mode, like
+ * {@link StreamingClient}.
+ */
+public final class JsonArrayDecoder {
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private JsonArrayDecoder() {}
+
+    public static <T> Flowable<T> decode(Callable<InputStream> body, Class<T> type) {
+        return decode(body, mapper.readerFor(type));
+    }
+
+    /** Decodes elements of the generic {@code type}, e.g. the type argument of a {@code Flowable} return type. */
+    public static <T> Flowable<T> decode(Callable<InputStream> body, Type type) {
+        return decode(body, mapper.readerFor(mapper.getTypeFactory().constructType(type)));
+    }
+
+    public static <T> Flowable<T> decode(Callable<InputStream> body, ObjectReader reader) {
+        return Flowable.generate(() -> {
+            InputStream in = body.call();
+            try {
+                JsonParser parser = reader.getFactory().createParser(in);
+                JsonToken token = parser.nextToken();
+                if (token != START_ARRAY) throw new JsonParseException(parser, "expected array, found " + token);
+                return parser;
+            } catch (Throwable e) {
+                in.close();
+                throw e;
+            }
+        }, (JsonParser parser, Emitter<T> out) -> {
+            JsonToken token = parser.nextToken();
+            while (token == VALUE_NULL) token = parser.nextToken();
+            if (token == END_ARRAY) out.onComplete();
+            else if (token == null) out.onError(new JsonParseException(parser, "unexpected end of array"));
+            else out.onNext(reader.readValue(parser));
+        }, JsonParser::close);
+    }
+}
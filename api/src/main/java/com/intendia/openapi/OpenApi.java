@@ -9,7 +9,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -168,15 +168,13 @@ public interface OpenApi {
         /** A definition of a PATCH operation on this path. */
         public Operation patch;
 
+        /** New map of the operations of this path by method, prefer the shared {@link OperationIndex}. */
         public @JsonIgnore Map<String, Operation> operations() {
-            Map<String, OpenApi.Operation> operations = new HashMap<>();
-            if (get != null) operations.put("GET", get);
-            if (put != null) operations.put("PUT", put);
-            if (post != null) operations.put("POST", post);
-            if (delete != null) operations.put("DELETE", delete);
-            if (options != null) operations.put("OPTIONS", options);
-            if (head != null) operations.put("HEAD", head);
-            if (patch != null) operations.put("PATCH", patch);
+            Map<String, OpenApi.Operation> operations = new LinkedHashMap<>();
+            for (OperationIndex.Method method : OperationIndex.Method.values()) {
+                Operation operation = method.of(this);
+                if (operation != null) operations.put(method.name(), operation);
+            }
             return operations;
         }
 
@@ -239,11 +237,16 @@ public interface OpenApi {
          */
         public Parameter[] parameters;
 
-        public @JsonIgnore Stream<Parameter> parameters(Function<String, Parameter> resolver) {
+        /** @deprecated use {@link #parameters(RefIndex)}, which resolves each ref without string operations */
+        @Deprecated public @JsonIgnore Stream<Parameter> parameters(Function<String, Parameter> resolver) {
             return Stream.of(firstNonNull(parameters, new Parameter[0]))
                     .map(p -> !isNullOrEmpty(p.$ref) ? resolver.apply(p.$ref.replace("#/parameters/", "")) : p);
         }
 
+        public @JsonIgnore Stream<Parameter> parameters(RefIndex refs) {
+            return Stream.of(firstNonNull(parameters, new Parameter[0])).map(refs::parameter);
+        }
+
         /**
          * Required. The list of possible responses as they are returned from executing this operation.
          */
@@ -355,6 +358,9 @@ public interface OpenApi {
      * Swagger Object's responses section.
      */
     @JsonInclude(NON_ABSENT) class Response {
+        /** Reference to a response defined at the Swagger Object's responses section. */
+        public String $ref;
+
         /** Required. A short description of the response. GFM syntax can be used for rich text representation. */
         public String description;
 
@@ -374,6 +380,7 @@ public interface OpenApi {
         @Override public String toString() {
             return MoreObjects.toStringHelper(this)
                     .omitNullValues()
+                    .add("$ref", $ref)
                     .add("schema", schema)
                     .add("headers", headers)
                     .add("examples", examples)
@@ -405,7 +412,21 @@ public interface OpenApi {
         }
     }
 
-    @JsonInclude(NON_ABSENT) class Header {}
+    /** Header sent with a response, the declared values tell whether the response can be cached. */
+    @JsonInclude(NON_ABSENT) class Header {
+        @JsonInclude(NON_EMPTY) public String description;
+        public String type;
+        @JsonProperty("enum") public String[] enumValues;
+        @JsonProperty("default") public String defaultValue;
+        @Override public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .omitNullValues()
+                    .add("type", type)
+                    .add("enumValues", enumValues)
+                    .add("defaultValue", defaultValue)
+                    .toString();
+        }
+    }
 
     //TODO: Add OAuth2 fields
     @JsonInclude(NON_ABSENT) class SecurityDefinition {
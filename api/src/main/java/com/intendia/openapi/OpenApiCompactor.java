@@ -0,0 +1,113 @@
+package com.intendia.openapi;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * Compacts a parsed {@link OpenApi.Doc} in place, for tools holding many specs in memory. The small vocabularies
+ * ({@code type}, {@code format}, {@code in}, {@code collectionFormat}, mime types...) and the names repeated across
+ * the doc (refs, property and parameter names, enum values) are interned, so each distinct value is a single instance
+ * shared by every spec. Maps are copied into {@link CompactMap}s, or {@link ImmutableMap}s if large, and empty maps
+ * and arrays are replaced by shared empty instances.
+ * <p>
+ * The compacted doc is read-only, its maps are immutable. Descriptions are unique enough to not be worth interning.
+ */
+public final class OpenApiCompactor {
+    /** Maps larger than this are hash based, so lookups like the ones of {@link RefIndex} stay constant time. */
+    static final int MAX_COMPACT_MAP = 16;
+    private static final String[] EMPTY = new String[0];
+    private static final Interner<String> strings = Interners.newWeakInterner();
+
+    private OpenApiCompactor() {}
+
+    public static OpenApi.Doc compact(OpenApi.Doc doc) {
+        doc.swagger = intern(doc.swagger);
+        doc.schemes = intern(doc.schemes);
+        doc.consumes = intern(doc.consumes);
+        doc.produces = intern(doc.produces);
+        doc.paths = map(doc.paths, OpenApiCompactor::pathItem);
+        doc.definitions = map(doc.definitions, OpenApiCompactor::schema);
+        doc.parameters = map(doc.parameters, OpenApiCompactor::parameter);
+        doc.responses = map(doc.responses, OpenApiCompactor::response);
+        return doc;
+    }
+
+    private static void pathItem(OpenApi.PathItem item) {
+        item.$ref = intern(item.$ref);
+        parameters(item.parameters);
+        for (OperationIndex.Method method : OperationIndex.Method.values()) {
+            OpenApi.Operation operation = method.of(item);
+            if (operation != null) operation(operation);
+        }
+    }
+
+    private static void operation(OpenApi.Operation operation) {
+        operation.tags = intern(operation.tags);
+        operation.consumes = intern(operation.consumes);
+        operation.produces = intern(operation.produces);
+        operation.schemes = intern(operation.schemes);
+        parameters(operation.parameters);
+        operation.responses = map(operation.responses, OpenApiCompactor::response);
+    }
+
+    private static void parameters(@Nullable OpenApi.Parameter[] parameters) {
+        if (parameters != null) for (OpenApi.Parameter p : parameters) if (p != null) parameter(p);
+    }
+
+    private static void parameter(OpenApi.Parameter p) {
+        p.$ref = intern(p.$ref);
+        p.name = intern(p.name);
+        p.in = intern(p.in);
+        p.type = intern(p.type);
+        p.format = intern(p.format);
+        p.collectionFormat = intern(p.collectionFormat);
+        p.enumValues = intern(p.enumValues);
+        p.defaultValue = intern(p.defaultValue);
+        if (p.schema != null) schema(p.schema);
+        if (p.items != null) schema(p.items);
+    }
+
+    private static void response(OpenApi.Response response) {
+        response.$ref = intern(response.$ref);
+        if (response.schema != null) schema(response.schema);
+        response.headers = map(response.headers, null);
+        response.examples = map(response.examples, null);
+    }
+
+    private static void schema(OpenApi.Schema schema) {
+        schema.$ref = intern(schema.$ref);
+        schema.type = intern(schema.type);
+        schema.format = intern(schema.format);
+        schema.enumValues = intern(schema.enumValues);
+        schema.required = intern(schema.required);
+        if (schema.items != null) schema(schema.items);
+        schema.properties = map(schema.properties, OpenApiCompactor::schema);
+    }
+
+    private static <V> Map<String, V> map(@Nullable Map<String, V> map, @Nullable Consumer<V> values) {
+        if (map == null) return null;
+        if (map.isEmpty()) return ImmutableMap.of();
+        if (values != null) for (V value : map.values()) if (value != null) values.accept(value);
+        if (map.size() > MAX_COMPACT_MAP && !map.containsValue(null)) {
+            ImmutableMap.Builder<String, V> out = ImmutableMap.builder();
+            map.forEach((k, v) -> out.put(intern(k), v));
+            return out.build();
+        }
+        return new CompactMap<>(map, OpenApiCompactor::intern);
+    }
+
+    private static @Nullable String[] intern(@Nullable String[] values) {
+        if (values == null) return null;
+        if (values.length == 0) return EMPTY;
+        for (int i = 0; i < values.length; i++) values[i] = intern(values[i]);
+        return values;
+    }
+
+    private static @Nullable String intern(@Nullable String value) {
+        return value == null ? null : strings.intern(value);
+    }
+}
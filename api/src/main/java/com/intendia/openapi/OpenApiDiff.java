@@ -0,0 +1,250 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+import javax.annotation.Nullable;
+
+/**
+ * Semantic diff between two versions of a {@link OpenApi.Doc}, reporting the added, removed and changed paths,
+ * operations, parameters and definitions. Definitions are compared by their {@link SchemaHash#shallow shallow hash},
+ * so a change in a definition is reported only for itself and not for its users, and aliases are compared by their
+ * canonical definition. Operations are compared structurally, field by field, with the merged parameters and every
+ * response ref resolved, and their parameters are also compared one by one by name and location. Callers which also
+ * need the ref and operation indexes of both docs, like an incremental generation, build them once and pass them.
+ * <p>
+ * Only what affects the generated sources is compared, so two docs that differ only in their info, tags or
+ * formatting are equal. Changes are reported in a stable order, the base path first, then paths, operations,
+ * parameters and finally definitions sorted by ref.
+ */
+public final class OpenApiDiff {
+
+    public enum Kind { ADDED, REMOVED, CHANGED }
+
+    public enum Element { BASE_PATH, PATH, OPERATION, PARAMETER, DEFINITION }
+
+    public static final class Change {
+        public final Kind kind;
+        public final Element element;
+        /**
+         * Changed element, the path, {@code METHOD path} for operations, {@code METHOD path in:name} for parameters
+         * and the canonical ref for definitions.
+         */
+        public final String key;
+
+        Change(Kind kind, Element element, String key) {
+            this.kind = kind;
+            this.element = element;
+            this.key = key;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Change)) return false;
+            Change that = (Change) o;
+            return kind == that.kind && element == that.element && key.equals(that.key);
+        }
+
+        @Override public int hashCode() { return Objects.hash(kind, element, key); }
+
+        @Override public String toString() { return kind + " " + element + " " + key; }
+    }
+
+    private final List<Change> changes;
+
+    private OpenApiDiff(List<Change> changes) { this.changes = changes; }
+
+    public static OpenApiDiff compare(OpenApi.Doc before, OpenApi.Doc after) {
+        RefIndex beforeRefs = new RefIndex(before), afterRefs = new RefIndex(after);
+        return compare(before, beforeRefs, new OperationIndex(before, beforeRefs),
+                after, afterRefs, new OperationIndex(after, afterRefs));
+    }
+
+    /** Compares both docs using their already built ref and operation indexes. */
+    public static OpenApiDiff compare(OpenApi.Doc before, RefIndex beforeRefs, OperationIndex beforeOperations,
+            OpenApi.Doc after, RefIndex afterRefs, OperationIndex afterOperations) {
+        ImmutableList.Builder<Change> out = ImmutableList.builder();
+
+        if (!Objects.equals(before.basePath, after.basePath)) {
+            out.add(new Change(Kind.CHANGED, Element.BASE_PATH, String.valueOf(after.basePath)));
+        }
+
+        Map<String, OperationIndex.Entry> beforeOps = operations(beforeOperations);
+        Map<String, OperationIndex.Entry> afterOps = operations(afterOperations);
+        Set<String> changedPaths = new LinkedHashSet<>();
+        List<Change> operationChanges = new ArrayList<>(), parameterChanges = new ArrayList<>();
+        compare(beforeOps, afterOps, (b, a) -> equal(b, beforeRefs, a, afterRefs),
+                (kind, key) -> {
+                    operationChanges.add(new Change(kind, Element.OPERATION, key));
+                    OperationIndex.Entry entry = firstNonNull(afterOps.get(key), beforeOps.get(key));
+                    changedPaths.add(entry.path);
+                    if (kind == Kind.CHANGED) compare(
+                            parameters(beforeOps.get(key)), parameters(afterOps.get(key)),
+                            OpenApiDiff::equal,
+                            (k, p) -> parameterChanges.add(new Change(k, Element.PARAMETER, key + " " + p)));
+                });
+
+        Map<String, OpenApi.PathItem> beforePaths = firstNonNull(before.paths, emptyMap());
+        Map<String, OpenApi.PathItem> afterPaths = firstNonNull(after.paths, emptyMap());
+        compare(beforePaths, afterPaths, (b, a) -> true, (kind, path) -> out.add(new Change(kind, Element.PATH, path)));
+        changedPaths.stream().filter(p -> beforePaths.containsKey(p) && afterPaths.containsKey(p))
+                .forEach(path -> out.add(new Change(Kind.CHANGED, Element.PATH, path)));
+        out.addAll(operationChanges).addAll(parameterChanges);
+
+        compare(definitions(before, beforeRefs), definitions(after, afterRefs), String::equals,
+                (kind, ref) -> out.add(new Change(kind, Element.DEFINITION, ref)));
+
+        return new OpenApiDiff(out.build());
+    }
+
+    /** Key of the operation in the reported changes, {@code METHOD path}. */
+    public static String key(OperationIndex.Entry operation) { return operation.method + " " + operation.path; }
+
+    public boolean isEmpty() { return changes.isEmpty(); }
+
+    public List<Change> changes() { return changes; }
+
+    public List<Change> changes(Element element) {
+        return changes.stream().filter(c -> c.element == element).collect(toList());
+    }
+
+    /** Keys of the added, removed or changed elements of the given type. */
+    public Set<String> keys(Element element) {
+        return changes.stream().filter(c -> c.element == element).map(c -> c.key)
+                .collect(toCollection(LinkedHashSet::new));
+    }
+
+    @Override public String toString() {
+        return changes.isEmpty() ? "no changes" : changes.size() + " changes " + changes;
+    }
+
+    /** Reports each key only in {@code after} as added, only in {@code before} as removed, or not equal as changed. */
+    private static <T> void compare(Map<String, T> before, Map<String, T> after, BiPredicate<T, T> equal,
+            Reporter change) {
+        for (String key : Sets.union(before.keySet(), after.keySet())) {
+            T b = before.get(key), a = after.get(key);
+            if (b == null) change.accept(Kind.ADDED, key);
+            else if (a == null) change.accept(Kind.REMOVED, key);
+            else if (!equal.test(b, a)) change.accept(Kind.CHANGED, key);
+        }
+    }
+
+    private interface Reporter { void accept(Kind kind, String key); }
+
+    private static Map<String, OperationIndex.Entry> operations(OperationIndex operations) {
+        Map<String, OperationIndex.Entry> out = new LinkedHashMap<>();
+        for (OperationIndex.Entry entry : operations) out.put(key(entry), entry);
+        return out;
+    }
+
+    /** Shallow hash of each definition by ref, or the canonical target of aliases. */
+    private static Map<String, String> definitions(OpenApi.Doc doc, RefIndex refs) {
+        SchemaHash hashes = new SchemaHash(refs);
+        Map<String, String> out = new TreeMap<>();
+        for (String ref : refs.definitions()) out.put(ref, hashes.shallow(ref).toString());
+        if (doc.definitions != null) for (String name : doc.definitions.keySet()) {
+            String ref = RefIndex.DEFINITIONS + name;
+            if (refs.isAlias(name)) out.put(ref, "alias " + refs.definition(ref));
+        }
+        return out;
+    }
+
+    private static Map<String, OpenApi.Parameter> parameters(OperationIndex.Entry operation) {
+        Map<String, OpenApi.Parameter> out = new LinkedHashMap<>();
+        for (OpenApi.Parameter p : operation.parameters) out.put(p.in + ":" + p.name, p);
+        return out;
+    }
+
+    /** Equal operations, including their merged parameters and their resolved responses. */
+    private static boolean equal(OperationIndex.Entry b, RefIndex beforeRefs, OperationIndex.Entry a,
+            RefIndex afterRefs) {
+        OpenApi.Operation x = b.operation, y = a.operation;
+        if (!(Arrays.equals(x.tags, y.tags) && Objects.equals(x.summary, y.summary)
+                && Objects.equals(x.description, y.description) && (x.externalDocs == null) == (y.externalDocs == null)
+                && Objects.equals(x.operationId, y.operationId) && Arrays.equals(x.consumes, y.consumes)
+                && Arrays.equals(x.produces, y.produces) && Arrays.equals(x.schemes, y.schemes)
+                && x.deprecated == y.deprecated && equal(x.security, y.security))) return false;
+        if (b.parameters.size() != a.parameters.size()) return false;
+        for (int i = 0; i < b.parameters.size(); i++) {
+            if (!equal(b.parameters.get(i), a.parameters.get(i))) return false;
+        }
+        Map<String, OpenApi.Response> xr = firstNonNull(x.responses, emptyMap());
+        Map<String, OpenApi.Response> yr = firstNonNull(y.responses, emptyMap());
+        if (!xr.keySet().equals(yr.keySet())) return false;
+        for (Map.Entry<String, OpenApi.Response> r : xr.entrySet()) {
+            if (!equal(beforeRefs.response(r.getValue()), afterRefs.response(yr.get(r.getKey())))) return false;
+        }
+        return true;
+    }
+
+    /** Equal security requirements, the scopes of each scheme compared by content. */
+    private static boolean equal(@Nullable Map<String, String[]>[] b, @Nullable Map<String, String[]>[] a) {
+        if (b == null || a == null) return b == a;
+        if (b.length != a.length) return false;
+        for (int i = 0; i < b.length; i++) {
+            Map<String, String[]> x = firstNonNull(b[i], emptyMap()), y = firstNonNull(a[i], emptyMap());
+            if (!x.keySet().equals(y.keySet())) return false;
+            for (Map.Entry<String, String[]> scopes : x.entrySet()) {
+                if (!Arrays.equals(scopes.getValue(), y.get(scopes.getKey()))) return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(OpenApi.Parameter b, OpenApi.Parameter a) {
+        return b == a || Objects.equals(b.$ref, a.$ref) && Objects.equals(b.name, a.name)
+                && Objects.equals(b.in, a.in) && b.required == a.required && equal(b.schema, a.schema)
+                && Objects.equals(b.type, a.type) && Objects.equals(b.format, a.format)
+                && Arrays.equals(b.enumValues, a.enumValues) && Objects.equals(b.description, a.description)
+                && Objects.equals(b.defaultValue, a.defaultValue) && equal(b.items, a.items)
+                && Objects.equals(b.collectionFormat, a.collectionFormat);
+    }
+
+    private static boolean equal(OpenApi.Response b, OpenApi.Response a) {
+        if (b == a) return true;
+        if (!(Objects.equals(b.description, a.description) && equal(b.schema, a.schema)
+                && Objects.equals(b.examples, a.examples))) return false;
+        Map<String, OpenApi.Header> bh = firstNonNull(b.headers, emptyMap());
+        Map<String, OpenApi.Header> ah = firstNonNull(a.headers, emptyMap());
+        if (!bh.keySet().equals(ah.keySet())) return false;
+        for (Map.Entry<String, OpenApi.Header> h : bh.entrySet()) {
+            if (!equal(h.getValue(), ah.get(h.getKey()))) return false;
+        }
+        return true;
+    }
+
+    private static boolean equal(@Nullable OpenApi.Header b, @Nullable OpenApi.Header a) {
+        if (b == a) return true;
+        if (b == null || a == null) return false;
+        return Objects.equals(b.description, a.description) && Objects.equals(b.type, a.type)
+                && Arrays.equals(b.enumValues, a.enumValues) && Objects.equals(b.defaultValue, a.defaultValue);
+    }
+
+    private static boolean equal(@Nullable OpenApi.Schema b, @Nullable OpenApi.Schema a) {
+        if (b == a) return true;
+        if (b == null || a == null) return false;
+        if (!(Objects.equals(b.$ref, a.$ref) && Objects.equals(b.type, a.type) && Objects.equals(b.format, a.format)
+                && Objects.equals(b.description, a.description) && Arrays.equals(b.enumValues, a.enumValues)
+                && Arrays.equals(b.required, a.required) && equal(b.items, a.items))) return false;
+        if (b.properties == null || a.properties == null) return b.properties == a.properties;
+        if (!b.properties.keySet().equals(a.properties.keySet())) return false;
+        for (Map.Entry<String, OpenApi.Schema> p : b.properties.entrySet()) {
+            if (!equal(p.getValue(), a.properties.get(p.getKey()))) return false;
+        }
+        return true;
+    }
+}
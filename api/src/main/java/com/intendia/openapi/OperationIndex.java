@@ -0,0 +1,89 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static java.util.Collections.emptyMap;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable index of the operations of a {@link OpenApi.Doc}, built in a single pass over its paths. Entries are
+ * ordered by path (document order) and then by {@link Method}. Each entry carries the path-level parameters merged
+ * with the operation-level ones, which override them by name and location, with every parameter ref resolved.
+ */
+public final class OperationIndex implements Iterable<OperationIndex.Entry> {
+
+    public enum Method {
+        GET, PUT, POST, DELETE, OPTIONS, HEAD, PATCH;
+
+        public @Nullable OpenApi.Operation of(OpenApi.PathItem item) {
+            switch (this) {
+                case GET: return item.get;
+                case PUT: return item.put;
+                case POST: return item.post;
+                case DELETE: return item.delete;
+                case OPTIONS: return item.options;
+                case HEAD: return item.head;
+                case PATCH: return item.patch;
+                default: throw new AssertionError(this);
+            }
+        }
+    }
+
+    public static final class Entry {
+        public final Method method;
+        public final String path;
+        public final OpenApi.Operation operation;
+        /** Path-level and operation-level parameters, merged and resolved. */
+        public final List<OpenApi.Parameter> parameters;
+
+        Entry(Method method, String path, OpenApi.Operation operation, List<OpenApi.Parameter> parameters) {
+            this.method = method;
+            this.path = path;
+            this.operation = operation;
+            this.parameters = parameters;
+        }
+
+        @Override public String toString() { return method + " " + path + " " + operation; }
+    }
+
+    private final List<Entry> entries;
+
+    public OperationIndex(OpenApi.Doc doc, RefIndex refs) {
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        Map<String, OpenApi.PathItem> paths = firstNonNull(doc.paths, emptyMap());
+        paths.forEach((path, item) -> {
+            List<OpenApi.Parameter> shared = merge(refs, ImmutableList.of(), item.parameters);
+            for (Method method : Method.values()) {
+                OpenApi.Operation operation = method.of(item);
+                if (operation != null) {
+                    entries.add(new Entry(method, path, operation, merge(refs, shared, operation.parameters)));
+                }
+            }
+        });
+        this.entries = entries.build();
+    }
+
+    private static List<OpenApi.Parameter> merge(RefIndex refs, List<OpenApi.Parameter> inherited,
+            @Nullable OpenApi.Parameter[] declared) {
+        if (declared == null || declared.length == 0) return inherited;
+        Map<String, OpenApi.Parameter> merged = new LinkedHashMap<>();
+        for (OpenApi.Parameter p : inherited) merged.put(p.in + ":" + p.name, p);
+        for (OpenApi.Parameter p : declared) {
+            OpenApi.Parameter resolved = refs.parameter(p);
+            merged.put(resolved.in + ":" + resolved.name, resolved);
+        }
+        return ImmutableList.copyOf(merged.values());
+    }
+
+    public List<Entry> entries() { return entries; }
+
+    public Stream<Entry> stream() { return entries.stream(); }
+
+    @Override public Iterator<Entry> iterator() { return entries.iterator(); }
+}
@@ -0,0 +1,111 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Index of the local references of a {@link OpenApi.Doc}, built once per doc. Every definition, parameter and
+ * response ref is resolved to its canonical node, following chains of refs (like a definition which is just a ref to
+ * another definition) with cycle detection. The index is immutable, so it can be shared by any number of threads.
+ */
+public final class RefIndex {
+    public static final String DEFINITIONS = "#/definitions/";
+    public static final String PARAMETERS = "#/parameters/";
+    public static final String RESPONSES = "#/responses/";
+
+    private final Map<String, String> definitions;
+    private final Map<String, OpenApi.Schema> schemas;
+    private final Map<String, OpenApi.Parameter> parameters;
+    private final Map<String, OpenApi.Response> responses;
+
+    public RefIndex(OpenApi.Doc doc) {
+        this.definitions = canonical(DEFINITIONS, doc.definitions, s -> s.$ref);
+        this.schemas = nodes(DEFINITIONS, doc.definitions, definitions);
+        this.parameters = nodes(PARAMETERS, doc.parameters, canonical(PARAMETERS, doc.parameters, p -> p.$ref));
+        this.responses = nodes(RESPONSES, doc.responses, canonical(RESPONSES, doc.responses, r -> r.$ref));
+    }
+
+    /** Canonical definition ref of {@code ref}, or null if it is not a local definition. */
+    public @Nullable String definition(String ref) {
+        String canonical = definitions.get(ref);
+        return canonical != null && schemas.containsKey(canonical) ? canonical : null;
+    }
+
+    /** Canonical schema of the definition {@code ref}, or null if it is not a local definition. */
+    public @Nullable OpenApi.Schema schema(String ref) {
+        String canonical = definitions.get(ref);
+        return canonical == null ? null : schemas.get(canonical);
+    }
+
+    /** Refs of the canonical definitions, those with a schema of their own. */
+    public Set<String> definitions() {
+        return definitions.entrySet().stream()
+                .filter(e -> e.getKey().equals(e.getValue()) && schemas.containsKey(e.getKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /** True if the definition is declared as a ref to another definition, so it has no type of its own. */
+    public boolean isAlias(String definitionName) {
+        return !(DEFINITIONS + definitionName).equals(definitions.get(DEFINITIONS + definitionName));
+    }
+
+    /** Returns the referenced parameter if {@code p} is a ref, or {@code p} itself otherwise. */
+    public OpenApi.Parameter parameter(OpenApi.Parameter p) {
+        if (isNullOrEmpty(p.$ref)) return p;
+        OpenApi.Parameter resolved = parameters.get(p.$ref);
+        if (resolved == null) throw new IllegalArgumentException("unresolved parameter $ref " + p.$ref);
+        return resolved;
+    }
+
+    /** Returns the referenced response if {@code r} is a ref, or {@code r} itself otherwise. */
+    public OpenApi.Response response(OpenApi.Response r) {
+        if (isNullOrEmpty(r.$ref)) return r;
+        OpenApi.Response resolved = responses.get(r.$ref);
+        if (resolved == null) throw new IllegalArgumentException("unresolved response $ref " + r.$ref);
+        return resolved;
+    }
+
+    /** Maps the ref of each node to the ref at the end of its chain, which might be external or dangling. */
+    private static <T> Map<String, String> canonical(String prefix, @Nullable Map<String, T> nodes,
+            Function<T, String> refOf) {
+        if (nodes == null) return ImmutableMap.of();
+        Map<String, String> out = new HashMap<>();
+        for (String name : nodes.keySet()) {
+            Set<String> chain = new LinkedHashSet<>();
+            String ref = prefix + name;
+            while (true) {
+                String known = out.get(ref);
+                if (known != null) { ref = known; break; }
+                if (!chain.add(ref)) throw new IllegalArgumentException("cyclic $ref " + chain + " -> " + ref);
+                T node = ref.startsWith(prefix) ? nodes.get(ref.substring(prefix.length())) : null;
+                String next = node == null ? null : refOf.apply(node);
+                if (isNullOrEmpty(next)) break;
+                ref = next;
+            }
+            for (String link : chain) out.put(link, ref);
+        }
+        return ImmutableMap.copyOf(out);
+    }
+
+    /** Maps each ref to its canonical node, skipping refs that cannot be resolved locally. */
+    private static <T> Map<String, T> nodes(String prefix, @Nullable Map<String, T> nodes,
+            Map<String, String> canonical) {
+        if (nodes == null) return ImmutableMap.of();
+        ImmutableMap.Builder<String, T> out = ImmutableMap.builder();
+        canonical.forEach((ref, target) -> {
+            T node = target.startsWith(prefix) ? nodes.get(target.substring(prefix.length())) : null;
+            if (node != null) out.put(ref, node);
+        });
+        return out.build();
+    }
+}
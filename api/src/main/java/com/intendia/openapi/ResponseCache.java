@@ -0,0 +1,113 @@
+package com.intendia.openapi;
+
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU store of responses with a time to live, used by the caching decorators generated for idempotent
+ * operations. Each response is stored as soon as it is requested, as a {@link Single#cache() cached} source shared by
+ * every identical call, so concurrent identical calls are coalesced into a single request. Failed responses are
+ * removed, so the next call retries.
+ */
+public class ResponseCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<Object, Entry> entries;
+    private long hits;
+    private long misses;
+
+    private static final class Key {
+        final String operation;
+        final Object[] args;
+        Key(String operation, Object[] args) {
+            this.operation = operation;
+            this.args = args;
+        }
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return operation.equals(other.operation) && Arrays.deepEquals(args, other.args);
+        }
+        @Override public int hashCode() { return 31 * operation.hashCode() + Arrays.deepHashCode(args); }
+        @Override public String toString() { return operation + Arrays.deepToString(args); }
+    }
+
+    private static class Entry {
+        final long expires;
+        Object response;
+        Entry(long expires) { this.expires = expires; }
+    }
+
+    public ResponseCache(int maxEntries, long ttl, TimeUnit unit) {
+        this(maxEntries, ttl, unit, System::currentTimeMillis);
+    }
+
+    /** Cache using {@code clock} (millis) as time source, so tests can control the expiration. */
+    ResponseCache(int maxEntries, long ttl, TimeUnit unit, LongSupplier clock) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("max entries must be positive: " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.ttlMillis = unit.toMillis(ttl);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cache key of an operation call, its name and arguments. Keys of calls with equal arguments are equal, arrays
+     * are compared by content.
+     */
+    public static Object key(String operation, Object... args) {
+        return args.length == 0 ? operation : new Key(operation, args);
+    }
+
+    public <T> Single<T> single(Object key, Supplier<Single<T>> request) {
+        return cached(key, (Entry entry) -> request.get().doOnError(e -> remove(key, entry)).cache());
+    }
+
+    public <T> Observable<T> observable(Object key, Supplier<Observable<T>> request) {
+        return cached(key, (Entry entry) -> request.get().doOnError(e -> remove(key, entry)).cache());
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <S> S cached(Object key, Function<Entry, S> share) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expires > now) {
+            hits++;
+            return (S) entry.response;
+        }
+        misses++;
+        entry = new Entry(now + ttlMillis);
+        entry.response = share.apply(entry);
+        entries.put(key, entry);
+        return (S) entry.response;
+    }
+
+    private synchronized void remove(Object key, Entry entry) {
+        if (entries.get(key) == entry) entries.remove(key);
+    }
+
+    /** Removes every response, like after a call which might modify the cached resources. */
+    public synchronized void invalidateAll() { entries.clear(); }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized long hits() { return hits; }
+
+    public synchronized long misses() { return misses; }
+
+    @Override public synchronized String toString() {
+        return "ResponseCache{size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + "}";
+    }
+}
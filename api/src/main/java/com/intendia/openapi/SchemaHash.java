@@ -0,0 +1,115 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+
+/**
+ * Structural hashes of the definitions of a {@link OpenApi.Doc}, built once per doc. The hash of a definition covers
+ * its name, its whole schema (descriptions included) and every definition reachable through its refs, so two
+ * definitions of different specs with the same hash generate exactly the same type. Refs are hashed by canonical
+ * name, so aliases and cycles hash consistently whichever definition is hashed first. Unresolved refs are hashed by
+ * their marked ref, as they generate an {@code Object} and not the type of a schema without ref.
+ * <p>
+ * The shallow hashes are built eagerly, the full hashes on the first {@link #definition} call, as each one covers
+ * every reachable definition, which might be the whole doc for each of its definitions.
+ */
+public final class SchemaHash {
+    private final Map<String, HashCode> shallow;
+    private final Map<String, Set<String>> dependencies;
+    private final Supplier<Map<String, HashCode>> hashes = Suppliers.memoize(this::hashes);
+
+    public SchemaHash(RefIndex refs) {
+        Map<String, HashCode> shallow = new HashMap<>();
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        for (String ref : refs.definitions()) {
+            Set<String> deps = new TreeSet<>();
+            Hasher hasher = Hashing.sha256().newHasher().putString(ref, UTF_8).putByte((byte) 0);
+            schema(hasher, refs, refs.schema(ref), deps);
+            shallow.put(ref, hasher.hash());
+            dependencies.put(ref, deps);
+        }
+        this.shallow = ImmutableMap.copyOf(shallow);
+        this.dependencies = dependencies;
+    }
+
+    private Map<String, HashCode> hashes() {
+        ImmutableMap.Builder<String, HashCode> out = ImmutableMap.builder();
+        for (String ref : shallow.keySet()) {
+            // the shallow hash of every reachable definition, sorted by ref so the result does not depend on order
+            Map<String, HashCode> reachable = new TreeMap<>();
+            Deque<String> pending = new ArrayDeque<>();
+            pending.add(ref);
+            while (!pending.isEmpty()) {
+                String next = pending.poll();
+                if (reachable.containsKey(next) || !shallow.containsKey(next)) continue;
+                reachable.put(next, shallow.get(next));
+                pending.addAll(dependencies.get(next));
+            }
+            Hasher hasher = Hashing.sha256().newHasher().putBytes(shallow.get(ref).asBytes());
+            reachable.forEach((r, h) -> hasher.putString(r, UTF_8).putBytes(h.asBytes()));
+            out.put(ref, hasher.hash());
+        }
+        return out.build();
+    }
+
+    /** Hash of the canonical definition {@code ref}, or null if it is not a local definition. */
+    public @Nullable HashCode definition(String ref) { return hashes.get().get(ref); }
+
+    /**
+     * Hash of the schema of the canonical definition {@code ref} alone, its refs hashed only by canonical name, or
+     * null if it is not a local definition. Unlike {@link #definition}, it does not change if a referenced definition
+     * changes, like the type generated for the definition itself.
+     */
+    public @Nullable HashCode shallow(String ref) { return shallow.get(ref); }
+
+    private static void schema(Hasher out, RefIndex refs, @Nullable OpenApi.Schema schema, Set<String> deps) {
+        if (schema == null) { out.putByte((byte) 0); return; }
+        out.putByte((byte) 1);
+        if (!isNullOrEmpty(schema.$ref)) {
+            String canonical = refs.definition(schema.$ref);
+            if (canonical != null) deps.add(canonical);
+            // unresolved refs are marked, so defining the missing definition changes the hash of its users
+            string(out, canonical != null ? canonical : "!" + schema.$ref);
+        } else string(out, null);
+        string(out, schema.type);
+        string(out, schema.format);
+        string(out, schema.description);
+        strings(out, schema.enumValues);
+        strings(out, schema.required);
+        schema(out, refs, schema.items, deps);
+        if (schema.properties == null) out.putInt(-1);
+        else {
+            out.putInt(schema.properties.size());
+            schema.properties.forEach((name, property) -> {
+                string(out, name);
+                schema(out, refs, property, deps);
+            });
+        }
+    }
+
+    private static void strings(Hasher out, @Nullable String[] values) {
+        if (values == null) { out.putInt(-1); return; }
+        out.putInt(values.length);
+        for (String value : values) string(out, value);
+    }
+
+    private static void string(Hasher out, @Nullable String value) {
+        if (value == null) { out.putInt(-1); return; }
+        out.putInt(value.length()).putString(value, UTF_8);
+    }
+}
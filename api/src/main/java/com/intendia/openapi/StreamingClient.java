@@ -0,0 +1,99 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+/**
+ * JRE backend of the {@code Flowable} array responses generated in streaming mode. Proxies a generated resource
+ * interface, requesting each GET operation returning {@code Flowable} with {@link HttpURLConnection} on subscription
+ * and decoding its body with {@link JsonArrayDecoder}, so the elements are read from the connection as they are
+ * requested. Any other operation is delegated, e.g. to the AutoREST client of the same interface.
+ */
+public final class StreamingClient {
+
+    private StreamingClient() {}
+
+    /** Streaming client of the {@code resource} interface, relative to {@code baseUrl}, e.g. {@code http://host}. */
+    public static <T> T create(Class<T> resource, String baseUrl, T delegate) {
+        return resource.cast(Proxy.newProxyInstance(resource.getClassLoader(), new Class<?>[] { resource },
+                (proxy, method, args) -> {
+                    if (method.getReturnType() == Flowable.class && method.isAnnotationPresent(GET.class)) {
+                        URL url = url(baseUrl, resource, method, args);
+                        return JsonArrayDecoder.decode(() -> open(url, method, args),
+                                ((ParameterizedType) method.getGenericReturnType()).getActualTypeArguments()[0]);
+                    }
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    static URL url(String baseUrl, Class<?> resource, Method method, Object[] args) throws IOException {
+        StringBuilder path = new StringBuilder(baseUrl);
+        append(path, resource.getAnnotation(Path.class));
+        append(path, method.getAnnotation(Path.class));
+        String url = path.toString(), separator = "?";
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            if (args[i] == null) continue;
+            for (Annotation a : annotations[i]) {
+                if (a instanceof PathParam) {
+                    url = url.replace("{" + ((PathParam) a).value() + "}", encode(args[i]).replace("+", "%20"));
+                } else if (a instanceof QueryParam) {
+                    url += separator + encode(((QueryParam) a).value()) + "=" + encode(args[i]);
+                    separator = "&";
+                }
+            }
+        }
+        return new URL(url);
+    }
+
+    private static InputStream open(URL url, Method method, Object[] args) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation a : annotations[i]) {
+                if (a instanceof HeaderParam && args[i] != null) {
+                    connection.setRequestProperty(((HeaderParam) a).value(), String.valueOf(args[i]));
+                }
+            }
+        }
+        int status = connection.getResponseCode();
+        if (status / 100 != 2) {
+            connection.disconnect();
+            throw new IOException("unexpected status " + status + " for " + url);
+        }
+        return connection.getInputStream();
+    }
+
+    private static void append(StringBuilder url, Path path) {
+        if (path == null || path.value().isEmpty() || path.value().equals("/")) return;
+        if (url.length() > 0 && url.charAt(url.length() - 1) == '/') url.setLength(url.length() - 1);
+        if (!path.value().startsWith("/")) url.append('/');
+        url.append(path.value());
+    }
+
+    private static String encode(Object value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(String.valueOf(value), UTF_8.name());
+    }
+}
@@ -0,0 +1,78 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import io.reactivex.subscribers.TestSubscriber;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class JsonArrayDecoderTest {
+
+    /** Body counting the bytes read from it, and whether it is closed. */
+    private static class Body extends FilterInputStream {
+        final int size;
+        int read;
+        boolean closed;
+
+        Body(String json) { this(json.getBytes(UTF_8)); }
+        private Body(byte[] bytes) { super(new ByteArrayInputStream(bytes)); this.size = bytes.length; }
+
+        @Override public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) read++;
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) read += n;
+            return n;
+        }
+
+        @Override public void close() throws IOException { closed = true; super.close(); }
+    }
+
+    @Test public void requestOneReadsOneElement() {
+        Body body = new Body(IntStream.range(0, 100_000).mapToObj(Integer::toString)
+                .collect(Collectors.joining(",", "[", "]")));
+        TestSubscriber<Integer> subscriber = JsonArrayDecoder.decode(() -> body, Integer.class).test(1);
+        subscriber.assertValues(0).assertNotComplete();
+        assertTrue("read " + body.read + " of " + body.size, body.read < body.size / 10);
+
+        subscriber.request(2);
+        subscriber.assertValues(0, 1, 2);
+        assertTrue(!body.closed);
+    }
+
+    @Test public void cancellationClosesBody() {
+        Body body = new Body("[1,2,3]");
+        TestSubscriber<Integer> subscriber = JsonArrayDecoder.decode(() -> body, Integer.class).test(1);
+        subscriber.cancel();
+        subscriber.assertValues(1).assertNotComplete();
+        assertTrue(body.closed);
+    }
+
+    @Test public void completionClosesBodyAndSkipsNulls() {
+        Body body = new Body("[1,null,2]");
+        JsonArrayDecoder.decode(() -> body, Integer.class).test().assertResult(1, 2);
+        assertTrue(body.closed);
+    }
+
+    @Test public void notAnArrayClosesBody() {
+        Body body = new Body("{\"a\":1}");
+        JsonArrayDecoder.decode(() -> body, Integer.class).test().assertError(JsonParseException.class);
+        assertTrue(body.closed);
+    }
+
+    @Test public void malformedBodyClosesBody() {
+        Body body = new Body("<html>");
+        JsonArrayDecoder.decode(() -> body, Integer.class).test().assertError(JsonParseException.class);
+        assertTrue(body.closed);
+    }
+}
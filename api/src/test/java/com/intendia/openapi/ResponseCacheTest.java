@@ -0,0 +1,84 @@
+package com.intendia.openapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import io.reactivex.Single;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class ResponseCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private Single<Integer> request() { return Single.fromCallable(requests::incrementAndGet); }
+
+    @Test public void coalescesIdenticalCalls() {
+        ResponseCache cache = new ResponseCache(10, 1, TimeUnit.MINUTES, now::get);
+        Single<Integer> first = cache.single(ResponseCache.key("GET /pets", 1), this::request);
+        Single<Integer> second = cache.single(ResponseCache.key("GET /pets", 1), this::request);
+        assertSame(first, second);
+        assertEquals(1, (int) first.blockingGet());
+        assertEquals(1, (int) second.blockingGet());
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        assertEquals(2, (int) cache.single(ResponseCache.key("GET /pets", 2), this::request).blockingGet());
+    }
+
+    @Test public void keysOnEqualArguments() {
+        ResponseCache cache = new ResponseCache(10, 1, TimeUnit.MINUTES, now::get);
+        Object key = ResponseCache.key("GET /pets", new String("dog"), new String[] { "a", "b" });
+        assertEquals(key, ResponseCache.key("GET /pets", new String("dog"), new String[] { "a", "b" }));
+        assertEquals(1, (int) cache.single(key, this::request).blockingGet());
+        assertEquals(1, (int) cache.single(ResponseCache.key("GET /pets", new String("dog"), new String[] { "a", "b" }),
+                this::request).blockingGet());
+        assertNotEquals(key, ResponseCache.key("GET /pets", "dog", new String[] { "a" }));
+        assertNotEquals(key, ResponseCache.key("GET /cats", "dog", new String[] { "a", "b" }));
+        assertEquals(1, requests.get());
+    }
+
+        @Test public void expiresAfterTtl() {
+        ResponseCache cache = new ResponseCache(10, 100, TimeUnit.MILLISECONDS, now::get);
+        assertEquals(1, (int) cache.single("GET /pets", this::request).blockingGet());
+        now.set(99);
+        assertEquals(1, (int) cache.single("GET /pets", this::request).blockingGet());
+        now.set(100);
+        assertEquals(2, (int) cache.single("GET /pets", this::request).blockingGet());
+        assertEquals(2, requests.get());
+    }
+
+    @Test public void evictsLeastRecentlyUsed() {
+        ResponseCache cache = new ResponseCache(2, 1, TimeUnit.MINUTES, now::get);
+        cache.single("a", this::request).blockingGet();
+        cache.single("b", this::request).blockingGet();
+        cache.single("a", this::request).blockingGet(); // 'a' used after 'b'
+        cache.single("c", this::request).blockingGet();
+        assertEquals(2, cache.size());
+        assertEquals(1, (int) cache.single("a", this::request).blockingGet());
+        assertEquals(4, (int) cache.single("b", this::request).blockingGet());
+        assertEquals(4, requests.get());
+    }
+
+    @Test public void evictsFailedResponses() {
+        ResponseCache cache = new ResponseCache(10, 1, TimeUnit.MINUTES, now::get);
+        Single<Integer> failed = cache.single("GET /pets", () -> Single.error(new IOException("unavailable")));
+        failed.test().assertError(IOException.class);
+        assertEquals(0, cache.size());
+        assertEquals(1, (int) cache.single("GET /pets", this::request).blockingGet());
+        assertEquals(1, cache.size());
+    }
+
+    @Test public void invalidatesEveryResponse() {
+        ResponseCache cache = new ResponseCache(10, 1, TimeUnit.MINUTES, now::get);
+        cache.single("GET /pets", this::request).blockingGet();
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(2, (int) cache.single("GET /pets", this::request).blockingGet());
+    }
+}
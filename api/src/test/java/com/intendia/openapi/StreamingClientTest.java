@@ -0,0 +1,84 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.sun.net.httpserver.HttpServer;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamingClientTest {
+
+    @Path("/v1") public interface PetApi {
+        @GET @Path("/pets/{kind}") Flowable<Pet> list(@PathParam("kind") String kind,
+                @QueryParam("limit") @Nullable Integer limit, @HeaderParam("X-Tenant") String tenant);
+        @GET @Path("/pets/count") Single<Integer> count();
+    }
+
+    public static class Pet {
+        public String name;
+    }
+
+    private final List<String> requests = new ArrayList<>();
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/pets", exchange -> {
+            requests.add(exchange.getRequestURI() + " " + exchange.getRequestHeaders().getFirst("X-Tenant"));
+            byte[] content = "[{\"name\":\"rex\"},{\"name\":\"tom\",\"age\":3}]".getBytes(UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) { out.write(content); }
+        });
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @After public void stopServer() { server.stop(0); }
+
+    @Test public void streamsFlowableOperations() {
+        PetApi api = StreamingClient.create(PetApi.class, baseUrl + "/", null);
+        Flowable<Pet> pets = api.list("big dogs", 2, "acme");
+        assertEquals(0, requests.size()); // requested on subscription
+        List<Pet> values = pets.toList().blockingGet();
+        assertEquals(2, values.size());
+        assertEquals("rex", values.get(0).name);
+        assertEquals("tom", values.get(1).name);
+        assertEquals("/v1/pets/big%20dogs?limit=2 acme", requests.get(0));
+
+        api.list("cats", null, null).blockingSubscribe();
+        assertEquals("/v1/pets/cats null", requests.get(1));
+    }
+
+    @Test public void delegatesOtherOperations() {
+        PetApi delegate = new PetApi() {
+            @Override public Flowable<Pet> list(String kind, Integer limit, String tenant) { return Flowable.empty(); }
+            @Override public Single<Integer> count() { return Single.just(42); }
+        };
+        assertEquals(42, (int) StreamingClient.create(PetApi.class, baseUrl, delegate).count().blockingGet());
+        assertEquals(0, requests.size());
+    }
+
+    @Test public void failsOnErrorStatus() {
+        StreamingClient.create(PetApi.class, baseUrl + "/missing", null).list("cats", null, null).test()
+                .awaitDone(5, TimeUnit.SECONDS).assertError(IOException.class);
+    }
+}
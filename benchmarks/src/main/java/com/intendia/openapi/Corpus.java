@@ -0,0 +1,91 @@
+package com.intendia.openapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Benchmark specs. The 'small' spec is the petstore sample of the generator cli and the 'medium' one (hundreds of
+ * definitions and operations) is checked in as a resource, the 'huge' one is synthesized with the same shape as 'medium' but thousands of definitions, so the
+ * repository does not need to carry a multi-megabyte file.
+ */
+final class Corpus {
+    static final int HUGE_DEFINITIONS = 3000;
+    private static final String[][] TYPES = {
+            {"string", null}, {"integer", "int32"}, {"integer", "int64"},
+            {"number", "double"}, {"boolean", null}, {"string", "date-time"}};
+
+    private Corpus() {}
+
+    static byte[] load(String spec) throws IOException {
+        if (spec.equals("huge")) return synthesize(HUGE_DEFINITIONS);
+        String name = spec.equals("small") ? "petstore" : spec;
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name + ".json")) {
+            if (in == null) throw new IllegalArgumentException("unknown corpus spec " + spec);
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    static byte[] synthesize(int definitions) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode doc = mapper.createObjectNode()
+                .put("swagger", "2.0").put("host", "example.com").put("basePath", "/v1");
+        doc.putObject("info").put("title", "Synthetic API").put("version", "1.0");
+        ObjectNode parameters = doc.putObject("parameters");
+        parameters.putObject("pageToken").put("name", "pageToken").put("in", "query").put("type", "string");
+        parameters.putObject("pageSize").put("name", "pageSize").put("in", "query").put("type", "integer");
+        doc.putObject("responses").putObject("NotFound").put("description", "Not found");
+        ObjectNode defs = doc.putObject("definitions"), paths = doc.putObject("paths");
+        for (int i = 0; i < definitions; i++) {
+            String name = String.format("Resource%04d", i);
+            ObjectNode def = defs.putObject(name).put("type", "object").put("description", "Resource number " + i);
+            def.putArray("required").add("field0").add("field1");
+            ObjectNode props = def.putObject("properties");
+            for (int j = 0; j < 10; j++) {
+                String[] type = TYPES[(i + j) % TYPES.length];
+                ObjectNode prop = props.putObject("field" + j).put("type", type[0]).put("description", "Field " + j);
+                if (type[1] != null) prop.put("format", type[1]);
+            }
+            props.putObject("parent").put("$ref", ref((i * 7) % definitions));
+            props.putObject("items").put("type", "array")
+                    .putObject("items").put("$ref", ref((i * 13 + 1) % definitions));
+
+            String tag = "group" + (i % 8), base = String.format("/resources%04d", i);
+            ObjectNode collection = paths.putObject(base);
+            ObjectNode list = collection.putObject("get").put("operationId", "list" + name);
+            list.putArray("tags").add(tag);
+            list.putArray("parameters").add(refNode(mapper, "#/parameters/pageToken"))
+                    .add(refNode(mapper, "#/parameters/pageSize"));
+            list.putObject("responses").putObject("200").put("description", "ok")
+                    .putObject("schema").put("type", "array").putObject("items").put("$ref", ref(i));
+            ObjectNode create = collection.putObject("post").put("operationId", "create" + name);
+            create.putArray("tags").add(tag);
+            create.putArray("parameters").addObject().put("in", "body").put("name", "body").put("required", true)
+                    .putObject("schema").put("$ref", ref(i));
+            create.putObject("responses").putObject("200").put("description", "ok")
+                    .putObject("schema").put("$ref", ref(i));
+
+            ObjectNode item = paths.putObject(base + "/{id}");
+            item.putArray("parameters").addObject()
+                    .put("name", "id").put("in", "path").put("required", true).put("type", "string");
+            ObjectNode get = item.putObject("get").put("operationId", "get" + name);
+            get.putArray("tags").add(tag);
+            get.putArray("parameters").addObject().put("name", "fields").put("in", "query").put("type", "string");
+            ObjectNode responses = get.putObject("responses");
+            responses.putObject("200").put("description", "ok").putObject("schema").put("$ref", ref(i));
+            responses.set("404", refNode(mapper, "#/responses/NotFound"));
+            ObjectNode delete = item.putObject("delete").put("operationId", "delete" + name);
+            delete.putArray("tags").add(tag);
+            delete.putObject("responses").putObject("204").put("description", "deleted");
+        }
+        return mapper.writeValueAsBytes(doc);
+    }
+
+    private static String ref(int definition) { return String.format("#/definitions/Resource%04d", definition); }
+
+    private static ObjectNode refNode(ObjectMapper mapper, String ref) {
+        return mapper.createObjectNode().put("$ref", ref);
+    }
+}
@@ -0,0 +1,53 @@
+package com.intendia.openapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link OpenApiDiff#compare} between two versions of a {@link Corpus} spec, the work watch mode does on each
+ * save before writing anything, run with {@link BenchmarkRunner}. Defaults to the huge spec.
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class DiffBenchmark {
+
+    /** The spec, an identical copy and a copy with an edited definition and a removed operation. */
+    @State(Scope.Benchmark)
+    public static class Versions {
+        @Param({"huge"}) public String spec;
+
+        OpenApi.Doc before;
+        OpenApi.Doc same;
+        OpenApi.Doc edited;
+
+        @Setup public void setup() throws IOException {
+            byte[] json = Corpus.load(spec);
+            before = SpecParser.readDoc(new ByteArrayInputStream(json));
+            same = SpecParser.readDoc(new ByteArrayInputStream(json));
+            edited = SpecParser.readDoc(new ByteArrayInputStream(json));
+            edited.definitions.values().iterator().next().description = "edited";
+            edited.paths.values().stream().filter(path -> path.delete != null).findFirst().get().delete = null;
+            if (OpenApiDiff.compare(before, edited).changes().size() < 2) throw new IllegalStateException("no edit");
+        }
+    }
+
+    @Benchmark public OpenApiDiff unchanged(Versions versions) {
+        return OpenApiDiff.compare(versions.before, versions.same);
+    }
+
+    @Benchmark public OpenApiDiff edited(Versions versions) {
+        return OpenApiDiff.compare(versions.before, versions.edited);
+    }
+}
@@ -0,0 +1,45 @@
+package com.intendia.openapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Retained heap of each {@link Corpus} spec once loaded, with the plain parsed model and compacted by
+ * {@link OpenApiCompactor}. Several copies of each spec are held at once, like a corpus loaded for analysis, so
+ * interned values shared between copies are accounted once.
+ * <pre>java -cp benchmarks/target/benchmarks.jar com.intendia.openapi.ModelFootprint [copies]</pre>
+ */
+public class ModelFootprint {
+    public static void main(String[] args) throws IOException {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        System.out.printf("%-8s %14s %14s %8s%n", "spec", "plain KiB", "compact KiB", "ratio");
+        for (String spec : new String[] { "small", "medium", "huge" }) {
+            byte[] json = Corpus.load(spec);
+            long plain = retained(json, copies, false), compact = retained(json, copies, true);
+            System.out.printf("%-8s %14d %14d %7.2fx%n", spec, plain / 1024, compact / 1024, (double) plain / compact);
+        }
+    }
+
+    /** Average retained bytes of each of {@code copies} loaded docs. */
+    private static long retained(byte[] json, int copies, boolean compact) throws IOException {
+        long before = usedAfterGc();
+        List<OpenApi.Doc> docs = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            OpenApi.Doc doc = SpecParser.readDoc(new ByteArrayInputStream(json));
+            docs.add(compact ? OpenApiCompactor.compact(doc) : doc);
+        }
+        long after = usedAfterGc();
+        if (docs.size() != copies) throw new AssertionError(); // keeps the docs reachable until measured
+        return Math.max(0, after - before) / copies;
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
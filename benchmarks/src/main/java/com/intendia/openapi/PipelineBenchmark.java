@@ -0,0 +1,45 @@
+package com.intendia.openapi;
+
+import com.squareup.javapoet.JavaFile;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Cost of each generation stage over the {@link Corpus} specs, run with {@link BenchmarkRunner}. */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class PipelineBenchmark {
+
+    @Benchmark public OpenApi.Doc parse(SpecState state) throws IOException {
+        return SpecParser.readDoc(new ByteArrayInputStream(state.json));
+    }
+
+    @Benchmark public OpenApi.Doc parseCompact(SpecState state) throws IOException {
+        return OpenApiCompactor.compact(SpecParser.readDoc(new ByteArrayInputStream(state.json)));
+    }
+
+    @Benchmark public void resolve(SpecState state, Blackhole bh) {
+        Main.TypeResolver resolver = Main.resolver(SpecState.API, state.doc);
+        resolver.types.values().stream()
+                .filter(def -> def.schema.properties != null)
+                .forEach(def -> def.schema.properties.values().forEach(p -> bh.consume(resolver.type(p))));
+    }
+
+    @Benchmark public Object generate(SpecState state) {
+        return Main.openApi2JaxRs(SpecState.API, state.doc);
+    }
+
+    @Benchmark public StringBuilder emit(SpecState state) throws IOException {
+        StringBuilder out = new StringBuilder();
+        JavaFile.builder(SpecState.API.packageName(), state.typeSpec).build().writeTo(out);
+        return out;
+    }
+}
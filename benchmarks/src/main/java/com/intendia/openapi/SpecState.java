@@ -0,0 +1,28 @@
+package com.intendia.openapi;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.TypeSpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** One corpus spec in each of its pipeline representations, so each benchmark measures a single stage. */
+@State(Scope.Benchmark)
+public class SpecState {
+    static final ClassName API = ClassName.get("benchmark", "Api");
+
+    @Param({"small", "medium", "huge"}) public String spec;
+
+    byte[] json;
+    OpenApi.Doc doc;
+    TypeSpec typeSpec;
+
+    @Setup public void setup() throws IOException {
+        json = Corpus.load(spec);
+        doc = SpecParser.readDoc(new ByteArrayInputStream(json));
+        typeSpec = Main.openApi2JaxRs(API, doc);
+    }
+}
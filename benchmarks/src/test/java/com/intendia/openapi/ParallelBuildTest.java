@@ -0,0 +1,43 @@
+package com.intendia.openapi;
+
+import static org.junit.Assert.assertEquals;
+
+import com.squareup.javapoet.JavaFile;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** The huge corpus spec generates exactly the same sources whether its types are built in parallel or not. */
+public class ParallelBuildTest {
+    private static OpenApi.Doc doc;
+
+    @BeforeClass public static void parse() throws IOException {
+        doc = SpecParser.readDoc(new ByteArrayInputStream(Corpus.load("huge")));
+    }
+
+    @Test public void nestedLayout() throws IOException {
+        assertSameSources(OutputLayout.NESTED);
+    }
+
+    @Test public void splitLayoutByTag() throws IOException {
+        assertSameSources(new OutputLayout(true, true));
+    }
+
+    private static void assertSameSources(OutputLayout layout) throws IOException {
+        Map<String, String> sequential = generate(layout, 0), parallel = generate(layout, 1);
+        assertEquals(sequential.keySet(), parallel.keySet());
+        sequential.forEach((path, source) -> assertEquals(path, source, parallel.get(path)));
+    }
+
+    private static Map<String, String> generate(OutputLayout layout, int parallel) throws IOException {
+        GeneratorOptions options = new GeneratorOptions(TypeMapping.LEGACY, layout, true, true, parallel);
+        OutputSink.Memory sink = OutputSink.memory();
+        for (JavaFile file : Main.openApi2JaxRs(SpecState.API, doc, new SpecMetrics(), null, options)) {
+            sink.write(file);
+        }
+        return new TreeMap<>(sink.files());
+    }
+}
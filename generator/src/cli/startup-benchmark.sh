@@ -0,0 +1,37 @@
+#!/bin/bash
+# Time to first generated file of the launcher with and without its class data sharing archive, under the same JVM
+# flags so the difference is the archive alone, and of the plain jar for reference, each one the average of several
+# runs generating the petstore spec. Build first with 'mvn package -Pcli' in generator.
+# Usage: startup-benchmark.sh [runs]
+set -e
+runs=${1:-10}
+target=$(cd "$(dirname "$0")/../../target" && pwd)
+spec="file://$target/cli/petstore.json"
+
+# millis until the api interface is written, the generator keeps running (logging, closing resources) after that
+first_file() {
+    out=$(mktemp -d)
+    start=$(date +%s%N)
+    JAVA_OPTS="-Dopenapi.cache=false -Dopenapi.output=$out" "$@" "$spec" >/dev/null 2>&1 &
+    pid=$!
+    while [ ! -f "$out/api/Api.java" ] && kill -0 $pid 2>/dev/null; do sleep 0.005; done
+    end=$(date +%s%N)
+    wait $pid
+    [ -f "$out/api/Api.java" ] || { echo "generation failed: $*" >&2; exit 1; }
+    rm -rf "$out"
+    echo $(( (end - start) / 1000000 ))
+}
+
+plain() { java $JAVA_OPTS -jar "$target/cli/openapi-gen.jar" "$@"; }
+
+bench() {
+    name=$1; shift
+    total=0
+    for i in $(seq "$runs"); do total=$(( total + $(first_file "$@") )); done
+    echo "$name: $(( total / runs )) ms to first file (average of $runs runs)"
+}
+
+[ -f "$target/cli/openapi-gen.jsa" ] || { echo "missing openapi-gen.jsa, requires JDK 13+ to build" >&2; exit 1; }
+bench "java -jar" plain
+bench "launcher, no archive" env OPENAPI_GEN_CDS=false sh "$target/cli/openapi-gen"
+bench "launcher + AppCDS" sh "$target/cli/openapi-gen"
@@ -0,0 +1,80 @@
+package com.intendia.openapi;
+
+import com.intendia.openapi.Main.SpecData;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * {@link ApisGuru} client reading through a {@link SpecCache}. Each listed version is remembered, so specs whose
+ * {@code updated} timestamp did not change since they were cached are read from disk without any request. Without
+ * cache, each request goes directly to the registry.
+ */
+public class CachedApisGuru implements StreamingApisGuru {
+    private final String baseUrl;
+    private final @Nullable SpecCache cache;
+    private final Map<String, ApiVersion> versions = new ConcurrentHashMap<>();
+
+    public CachedApisGuru(String baseUrl, @Nullable SpecCache cache) {
+        this.baseUrl = baseUrl;
+        this.cache = cache;
+    }
+
+    @Override public Observable<ApiMap> list() {
+        return Observable.fromCallable(() -> {
+            ApiMap list = SpecParser.readList(open(listUrl(), null));
+            list.forEach((api, entry) -> entry.versions.forEach((version, v) ->
+                    versions.put(api.replace(":", "/") + "@" + version, v)));
+            return list;
+        });
+    }
+
+    @Override public Observable<OpenApi.Doc> spec(String api, String version) {
+        return Observable.fromCallable(() -> {
+            ApiVersion listed = versions.get(api + "@" + version);
+            String url = listed != null && listed.swaggerUrl != null ? listed.swaggerUrl : specUrl(api, version);
+            return SpecParser.readDoc(open(url, listed != null ? listed.updated : null));
+        });
+    }
+
+    @Override public Flowable<SpecData> preferred() {
+        return SpecParser.preferredSpecs(() -> open(listUrl(), null));
+    }
+
+    @Override public Observable<SpecData> fetch(SpecData spec) {
+        if (spec.swaggerUrl == null) return spec(spec.name.replace(":", "/"), spec.version).map(spec::doc);
+        return Observable.fromCallable(() -> {
+            long start = System.nanoTime();
+            InputStream in = open(spec.swaggerUrl, spec.updated);
+            spec.metrics.fetchNanos = System.nanoTime() - start;
+            return spec.doc(SpecParser.readDoc(in, spec.metrics));
+        });
+    }
+
+    String baseUrl() { return baseUrl; }
+
+    String listUrl() { return baseUrl + "v2/list.json"; }
+
+    /** Location of the spec, its {@code swaggerUrl} if listed. */
+    String specUrl(SpecData spec) {
+        return spec.swaggerUrl != null ? spec.swaggerUrl : specUrl(spec.name.replace(":", "/"), spec.version);
+    }
+
+    private String specUrl(String api, String version) {
+        return baseUrl + "v2/specs/" + api + "/" + version + "/swagger.json";
+    }
+
+    /** Opens the decoded content of {@code url}, {@code updated} is the listed timestamp of specs, if known. */
+    protected InputStream open(String url, @Nullable String updated) throws IOException {
+        if (cache != null) return cache.open(url, updated);
+        URLConnection connection = new URL(url).openConnection();
+        Compression.accept(connection);
+        return Compression.open(connection);
+    }
+}
@@ -0,0 +1,60 @@
+package com.intendia.openapi;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Content negotiation and streaming decompression of specs. Every fetch accepts gzip and deflate encoded responses,
+ * which are decompressed while the parser reads them, without buffering the whole spec or using temp files. Gzip
+ * content is also detected by its magic number, so {@code .json.gz} files and archive entries load transparently.
+ */
+public final class Compression {
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Compression() {}
+
+    /** Sets the JSON content negotiation headers of {@code connection}, before it is connected. */
+    public static void accept(URLConnection connection) {
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", ACCEPT_ENCODING);
+    }
+
+    /** Opens the decoded content of {@code connection}, according to its {@code Content-Encoding}. */
+    public static InputStream open(URLConnection connection) throws IOException {
+        return decode(connection.getInputStream(), connection.getContentEncoding());
+    }
+
+    /** Decodes {@code in} according to {@code encoding}, or to its gzip magic number if it declares no encoding. */
+    public static InputStream decode(InputStream in, @Nullable String encoding) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        String coding = encoding == null ? "" : encoding.trim().toLowerCase();
+        if (coding.equals("gzip") || coding.equals("x-gzip")) return new GZIPInputStream(buffered, BUFFER_SIZE);
+        if (coding.equals("deflate")) return inflate(buffered);
+        if (!coding.isEmpty() && !coding.equals("identity")) throw new IOException("unsupported encoding " + coding);
+        buffered.mark(2);
+        int b0 = buffered.read(), b1 = buffered.read();
+        buffered.reset();
+        return b0 == 0x1f && b1 == 0x8b ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+    }
+
+    /** Deflate responses should be zlib wrapped, but some servers send the raw deflate stream instead. */
+    private static InputStream inflate(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        int b0 = in.read(), b1 = in.read();
+        in.reset();
+        boolean zlib = b0 >= 0 && b1 >= 0 && (b0 & 0x0f) == 8 && ((b0 << 8) | b1) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+            @Override public void close() throws IOException {
+                try { super.close(); } finally { inflater.end(); }
+            }
+        };
+    }
+}
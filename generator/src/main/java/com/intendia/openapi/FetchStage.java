@@ -0,0 +1,64 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetch stage of the generation pipeline. Requests are subscribed on a dedicated I/O scheduler with a fixed maximum
+ * number of in-flight requests, and each host is rate limited independently. Upstream items are only requested while
+ * a request slot is free, and a slot is not released until its fetched item is consumed downstream, so at most
+ * {@code concurrency} fetched items wait for the next stage.
+ * <p>
+ * Configurable using system properties {@code openapi.fetch.concurrency} (max in-flight requests, default 8) and
+ * {@code openapi.fetch.rate} (requests per second for each host, default 20, 0 means unlimited).
+ */
+public class FetchStage {
+    private final int concurrency;
+    private final double permitsPerSecond;
+    private final Scheduler scheduler;
+    private final ConcurrentMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public FetchStage(int concurrency, double permitsPerSecond) {
+        checkArgument(concurrency > 0, "concurrency must be positive: %s", concurrency);
+        checkArgument(permitsPerSecond >= 0, "rate must not be negative: %s", permitsPerSecond);
+        this.concurrency = concurrency;
+        this.permitsPerSecond = permitsPerSecond;
+        this.scheduler = Schedulers.from(Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+                .setNameFormat("openapi-fetch-%d").setDaemon(true).build()));
+    }
+
+    public static FetchStage fromSystemProperties() {
+        return new FetchStage(Integer.getInteger("openapi.fetch.concurrency", 8),
+                Double.parseDouble(System.getProperty("openapi.fetch.rate", "20")));
+    }
+
+    /**
+     * Stage of a local source, like a {@link SnapshotApisGuru}, not rate limited and with a request slot for each
+     * processor, as reading a spec only costs CPU.
+     */
+    public static FetchStage local() { return new FetchStage(Runtime.getRuntime().availableProcessors(), 0); }
+
+    /** Maps each upstream item to its {@code request} to {@code host}, respecting concurrency and rate limits. */
+    public <T, R> FlowableTransformer<T, R> fetch(String host, Function<? super T, Observable<R>> request) {
+        return upstream -> upstream.flatMap(item -> Observable.defer(() -> {
+            acquire(host);
+            return request.apply(item);
+        }).subscribeOn(scheduler).toFlowable(BackpressureStrategy.BUFFER), concurrency);
+    }
+
+    private void acquire(String host) {
+        if (permitsPerSecond == 0) return;
+        limiters.computeIfAbsent(host, h -> RateLimiter.create(permitsPerSecond)).acquire();
+    }
+}
@@ -0,0 +1,91 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.intendia.openapi.Main.SpecData;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generation stage of the pipeline. Specs are generated by a worker pool sized to the available cores and connected
+ * to the fetch stage by a bounded queue, so generating a spec overlaps with fetching the next ones. If the queue is
+ * full, {@link #submit} blocks until a worker takes the next spec.
+ * <p>
+ * The queue is also bounded by a memory budget, the sum of the parsed size of the specs queued or being generated.
+ * A spec larger than the whole budget is still accepted, but only once every other spec has been generated.
+ * <p>
+ * Configurable using system properties {@code openapi.generate.threads} (default available processors),
+ * {@code openapi.generate.queue} (default twice the number of threads) and {@code openapi.generate.budget} (MiB of
+ * spec documents, default 64).
+ */
+public class GenerateStage implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(GenerateStage.class.getName());
+
+    private final int threads;
+    private final int queueSize;
+    private final Consumer<SpecData> generator;
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    private final int budgetKib;
+    private final Semaphore budget;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public GenerateStage(int threads, int queueSize, int budgetMib, Consumer<SpecData> generator) {
+        checkArgument(threads > 0, "threads must be positive: %s", threads);
+        checkArgument(queueSize > 0, "queue size must be positive: %s", queueSize);
+        checkArgument(budgetMib > 0, "budget must be positive: %s", budgetMib);
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.generator = generator;
+        // the semaphore bounds the queue, a bounded work queue might reject tasks while a worker is releasing its slot
+        this.slots = new Semaphore(threads + queueSize);
+        this.budgetKib = budgetMib * 1024;
+        this.budget = new Semaphore(budgetKib);
+        this.workers = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("openapi-generate-%d").setDaemon(true).build());
+    }
+
+    public static GenerateStage fromSystemProperties(Consumer<SpecData> generator) {
+        int threads = Integer.getInteger("openapi.generate.threads", Runtime.getRuntime().availableProcessors());
+        return new GenerateStage(threads, Integer.getInteger("openapi.generate.queue", 2 * threads),
+                Integer.getInteger("openapi.generate.budget", 64), generator);
+    }
+
+    /** Enqueues the spec for generation, blocking while the queue is full or the memory budget is exhausted. */
+    public void submit(SpecData spec) throws InterruptedException {
+        int kib = (int) Math.max(1, Math.min(budgetKib, spec.metrics.bytes / 1024));
+        slots.acquire();
+        try {
+            budget.acquire(kib);
+        } catch (InterruptedException e) {
+            slots.release();
+            throw e;
+        }
+        workers.execute(() -> {
+            try {
+                generator.accept(spec);
+            } catch (Throwable e) {
+                failures.incrementAndGet();
+                log.log(Level.SEVERE, "generation failed for " + spec.name, e);
+            } finally {
+                budget.release(kib);
+                slots.release();
+            }
+        });
+    }
+
+    /** Waits until every submitted spec has been generated, returns the number of failed specs. */
+    public int await() throws InterruptedException {
+        slots.acquire(threads + queueSize);
+        slots.release(threads + queueSize);
+        return failures.get();
+    }
+
+    @Override public void close() { workers.shutdown(); }
+}
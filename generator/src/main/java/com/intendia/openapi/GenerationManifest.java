@@ -0,0 +1,154 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Manifest stored in the output directory, maps each generated spec to a hash of its normalized {@link OpenApi.Doc}
+ * and the generator version. Specs with an unchanged hash are neither generated nor written again, so the output
+ * keeps its timestamps and downstream incremental compilation is not invalidated.
+ */
+public class GenerationManifest implements AutoCloseable {
+    static final String FILE_NAME = ".openapi-manifest.properties";
+    public static final String GENERATOR_VERSION = generatorVersion();
+
+    private static final ObjectMapper normalizer = new ObjectMapper()
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+    private final Path file;
+    private final String config;
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * @param config generator configuration affecting the output, included in every hash
+     */
+    public GenerationManifest(Path outputDir, String config) throws IOException {
+        this.file = outputDir.resolve(FILE_NAME);
+        this.config = config;
+        if (Files.exists(file)) try (Reader in = Files.newBufferedReader(file, UTF_8)) {
+            Properties stored = new Properties();
+            stored.load(in);
+            stored.stringPropertyNames().forEach(spec -> hashes.put(spec, stored.getProperty(spec)));
+        }
+    }
+
+    public String hash(OpenApi.Doc doc) {
+        Hasher hasher = Hashing.sha256().newHasher().putString(GENERATOR_VERSION, UTF_8).putString(config, UTF_8);
+        try {
+            normalizer.writeValue(Funnels.asOutputStream(hasher), doc);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hasher.hash().toString();
+    }
+
+    public boolean isUpToDate(String spec, String hash) { return hash.equals(hashes.get(spec)); }
+
+    public void update(String spec, String hash) { hashes.put(spec, hash); }
+
+    /** Names of the specs generated into the output. */
+    public Set<String> specs() { return new LinkedHashSet<>(hashes.keySet()); }
+
+    /** Forgets a spec whose sources were deleted. */
+    public void remove(String spec) { hashes.remove(spec); }
+
+    @Override public void close() throws IOException { save(); }
+
+    public synchronized void save() throws IOException {
+        Properties stored = new Properties();
+        stored.putAll(hashes);
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, UTF_8)) {
+            stored.store(out, "autorest-openapi generation manifest");
+        }
+        Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    /**
+     * Release version, or the version and the build timestamps of the generator and api modules for snapshot builds.
+     * Both are written by the build into a resource of each module, so they cost nothing at startup and any rebuild of
+     * the code emitting the sources invalidates the output.
+     */
+    private static String generatorVersion() {
+        Properties generator = build(Main.class, "generator-build.properties");
+        Properties api = build(OpenApi.class, "api-build.properties");
+        if (generator == null || api == null) return classesHash();
+        String version = generator.getProperty("version");
+        if (!version.endsWith("-SNAPSHOT")) return version;
+        return version + "+" + generator.getProperty("build") + "." + api.getProperty("build");
+    }
+
+    /** Build properties of the module of {@code type}, or null if missing or not filtered by the build. */
+    private static @Nullable Properties build(Class<?> type, String name) {
+        try (InputStream in = type.getResourceAsStream(name)) {
+            if (in == null) return null;
+            Properties out = new Properties();
+            out.load(in);
+            boolean filtered = !out.getProperty("version", "$").startsWith("$")
+                    && !out.getProperty("build", "$").startsWith("$");
+            return filtered ? out : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Hash of the generator and api classes, for builds without filtered resources, like an IDE. Each module is
+     * hashed whole, its jar or its classes directory, so any change in the code emitting the sources invalidates the
+     * output.
+     */
+    private static String classesHash() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        try {
+            // a single location if both modules are shaded into the same jar
+            Set<Path> locations = new LinkedHashSet<>();
+            for (Class<?> type : new Class<?>[] { Main.class, OpenApi.class }) {
+                locations.add(Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()));
+            }
+            for (Path location : locations) {
+                if (!Files.isDirectory(location)) { hasher.putBytes(Files.readAllBytes(location)); continue; }
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(location)) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    hasher.putString(location.relativize(file).toString(), UTF_8).putBytes(Files.readAllBytes(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        return hasher.hash().toString();
+    }
+}
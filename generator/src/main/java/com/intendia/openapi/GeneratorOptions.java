@@ -0,0 +1,54 @@
+package com.intendia.openapi;
+
+/**
+ * Options of a generation. The {@link TypeMapping}, the {@link OutputLayout}, the streaming array responses and the
+ * caching decorators change the generated sources, so they are part of the generation manifest configuration. The
+ * parallel build threshold does not, the sources are identical either way.
+ * <p>
+ * The command line reads them from the system properties documented in its help, the maven plugin from its
+ * parameters.
+ */
+public class GeneratorOptions {
+    public static final int PARALLEL = 512;
+    public static final GeneratorOptions DEFAULTS = new GeneratorOptions(
+            TypeMapping.LEGACY, OutputLayout.NESTED, false, false, PARALLEL);
+
+    private final TypeMapping types;
+    private final OutputLayout layout;
+    private final boolean streaming;
+    private final boolean caching;
+    private final int parallel;
+
+    public GeneratorOptions(TypeMapping types, OutputLayout layout, boolean streaming, boolean caching,
+            int parallel) {
+        this.types = types;
+        this.layout = layout;
+        this.streaming = streaming;
+        this.caching = caching;
+        this.parallel = parallel;
+    }
+
+    public static GeneratorOptions fromSystemProperties() {
+        return new GeneratorOptions(TypeMapping.fromSystemProperties(), OutputLayout.fromSystemProperties(),
+                Boolean.getBoolean("openapi.streaming"), Boolean.getBoolean("openapi.caching"),
+                Integer.getInteger("openapi.generate.parallel", PARALLEL));
+    }
+
+    /** Options affecting the generated sources, to be included in the generation manifest configuration. */
+    public String config() {
+        return types.config() + layout.config() + (streaming ? ";streaming" : "") + (caching ? ";caching" : "");
+    }
+
+    public TypeMapping types() { return types; }
+
+    public OutputLayout layout() { return layout; }
+
+    /** True if array responses are element by element decoded {@code Flowable}s, see {@link JsonArrayDecoder}. */
+    public boolean streaming() { return streaming; }
+
+    /** True if a {@link ResponseCache} decorator of each interface caches its idempotent operations. */
+    public boolean caching() { return caching; }
+
+    /** Min definitions or operations of a spec to build their specs in parallel, 0 means always sequential. */
+    public int parallel() { return parallel; }
+}
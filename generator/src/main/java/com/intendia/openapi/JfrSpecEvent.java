@@ -0,0 +1,47 @@
+package com.intendia.openapi;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event with the metrics of a generated spec, only loaded if JFR events are enabled in the {@link RunReport}. */
+@Name("com.intendia.openapi.Spec") @Label("OpenAPI Spec") @Category("OpenAPI")
+class JfrSpecEvent extends Event {
+    @Label("Spec") String spec;
+    @Label("Version") String version;
+    @Label("Fetch") @Timespan long fetch;
+    @Label("Size") @DataAmount long bytes;
+    @Label("Parse") @Timespan long parse;
+    @Label("Resolve") @Timespan long resolve;
+    @Label("Build") @Timespan long build;
+    @Label("Write") @Timespan long write;
+    @Label("Written") @DataAmount long writtenBytes;
+    @Label("Operations") int operations;
+    @Label("Definitions") int definitions;
+    @Label("Warnings") int warnings;
+    @Label("Up To Date") boolean upToDate;
+    @Label("Error") String error;
+
+    static void commit(SpecMetrics metrics) {
+        JfrSpecEvent event = new JfrSpecEvent();
+        if (!event.isEnabled()) return;
+        event.spec = metrics.spec;
+        event.version = metrics.version;
+        event.fetch = metrics.fetchNanos;
+        event.bytes = metrics.bytes;
+        event.parse = metrics.parseNanos;
+        event.resolve = metrics.resolveNanos;
+        event.build = metrics.buildNanos;
+        event.write = metrics.writeNanos;
+        event.writtenBytes = metrics.writtenBytes;
+        event.operations = metrics.operations;
+        event.definitions = metrics.definitions;
+        event.warnings = metrics.warnings;
+        event.upToDate = metrics.upToDate;
+        event.error = metrics.error;
+        event.commit();
+    }
+}
@@ -5,13 +5,11 @@ import static com.google.common.base.Strings.emptyToNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.util.Collections.emptyMap;
-import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
-import com.google.gson.Gson;
-import com.intendia.gwt.autorest.client.JreResourceBuilder;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
@@ -22,18 +20,31 @@ import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Single;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URLConnection;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -47,49 +58,279 @@ import jsinterop.annotations.JsType;
 
 public class Main {
     private static final Logger log = Logger.getLogger(Main.class.getName());
-    private static JreResourceBuilder createRequest() { return new JreResourceBuilder("https://api.apis.guru/"); }
-    public static final ApisGuru APIS_GURU = new ApisGuru_RestServiceModel(Main::createRequest);
+    public static final String APIS_GURU_URL = "https://api.apis.guru/";
+    static final java.nio.file.Path OUTPUT = Paths.get(System.getProperty("openapi.output", "target"));
+    /** Generator options of the command line, read from the system properties listed in {@link #help()}. */
+    static final GeneratorOptions OPTIONS = GeneratorOptions.fromSystemProperties();
 
-    public static void main(String[] args) {
-        Observable<SpecData> spec$ = null;
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equalsIgnoreCase("watch")) {
+            try (GenerationManifest manifest = new GenerationManifest(OUTPUT, OPTIONS.config());
+                    OutputSink sink = OutputSink.directory(OUTPUT);
+                    WatchMode watch = WatchMode.fromSystemProperties(Paths.get(args[1]), OPTIONS, manifest, sink)) {
+                watch.run();
+            }
+            return;
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("snapshot")) {
+            try (SpecCache cache = SpecCache.fromSystemProperties()) {
+                int specs = SnapshotApisGuru.write(new CachedApisGuru(APIS_GURU_URL, cache), Paths.get(args[1]),
+                        FetchStage.fromSystemProperties());
+                log.info("snapshot of " + specs + " specs written to " + args[1]);
+            }
+            return;
+        }
         if (args.length != 1) { help(); return; }
-        if (args[0].equalsIgnoreCase("all")) spec$ = fetchAllSpecs(APIS_GURU);
-        if (args[0].contains("@")) spec$ = fetchSpec(APIS_GURU, SpecData.valueOf(args[0]));
-        if (args[0].contains(":")) spec$ = loadSpec(args[0]);
-        if (spec$ == null) { help(); return; }
+        try (SpecCache cache = SpecCache.fromSystemProperties();
+                SnapshotApisGuru snapshot = SnapshotApisGuru.fromSystemProperties()) {
+            ApisGuru apisGuru = snapshot != null ? snapshot : new CachedApisGuru(APIS_GURU_URL, cache);
+            Flowable<SpecData> spec$ = null;
+            if (args[0].equalsIgnoreCase("all")) spec$ = fetchAllSpecs(apisGuru);
+            if (args[0].contains("@")) spec$ = fetchSpec(apisGuru, SpecData.valueOf(args[0]))
+                    .toFlowable(BackpressureStrategy.BUFFER);
+            if (args[0].contains(":")) spec$ = loadSpec(args[0]).toFlowable(BackpressureStrategy.BUFFER);
+            if (spec$ == null) { help(); return; }
 
-        spec$.subscribe(Main::generate);
+            java.nio.file.Path manifestDir = OutputSink.isArchive(OUTPUT)
+                    ? OUTPUT.toAbsolutePath().getParent() : OUTPUT;
+            try (RunReport report = RunReport.fromSystemProperties();
+                    OutputSink sink = OutputSink.of(OUTPUT)) {
+                SharedTypes shared = SharedTypes.fromSystemProperties(sink, OPTIONS.config());
+                String config = (shared == null ? "" : "shared=" + shared.packageName()) + OPTIONS.config();
+                try (GenerationManifest manifest = new GenerationManifest(manifestDir, config);
+                        GenerateStage generate = GenerateStage.fromSystemProperties(s -> {
+                            try {
+                                // a failed fetch is reported, and counted as a failure, like a failed generation
+                                if (s.doc == null) throw new IllegalStateException("no doc, " + s.metrics.error);
+                                generate(s, OPTIONS, manifest, sink, shared);
+                            } catch (Throwable e) {
+                                if (s.metrics.error == null) s.metrics.error = e.toString();
+                                throw e;
+                            } finally {
+                                s.doc = null; // release the doc graph as soon as it is written
+                                report.add(s.metrics);
+                            }
+                        })) {
+                    // request one spec at a time, so fetching never runs ahead of the generation queue
+                    for (SpecData spec : spec$.blockingIterable(1)) generate.submit(spec);
+                    int failures = generate.await();
+                    if (failures > 0) log.warning(failures + " specs failed to fetch or generate");
+                    log.info(sink.toString());
+                }
+            }
+            log.info(SpecParser.throughput());
+        }
     }
 
     private static void help() {
         // eg 'thetvdb.com@2.1.1', or '~/Code/petstore.json'
-        System.out.println("gen [all|<api>@<version>|<uri>]");
+        System.out.println("gen [all|<api>@<version>|<uri>|watch <dir>|snapshot <file>]");
         System.out.println("all - fetch and generates all available APIs in https://api.apis.guru/");
         System.out.println("<api>@<version> - fetch and generate the specified api/version");
         System.out.println("    All available APIs here: https://api.apis.guru/v2/list.json");
         System.out.println("<uri> - generate code for the specified openapi json, uri should start with '<scheme>:'");
+        System.out.println("    gzip compressed specs (.json.gz) and archive entries (jar: uris) are supported");
+        System.out.println("watch <dir> - generate each openapi json in the directory again whenever it changes");
+        System.out.println("snapshot <file> - store the registry list and all preferred specs in a single file");
         System.out.println();
         System.out.println("Examples:");
         System.out.println("gen file:///Users/ibaca/Code/petstore.json");
         System.out.println("gen http://petstore.swagger.io/v2/swagger.json");
+        System.out.println("gen jar:file:///Users/ibaca/Code/specs.zip!/petstore.json.gz");
+        System.out.println();
+        System.out.println("Options (system properties):");
+        System.out.println("-Dopenapi.fetch.concurrency=8 - max in-flight spec requests");
+        System.out.println("-Dopenapi.fetch.rate=20 - max requests per second to each host, 0 means unlimited");
+        System.out.println("-Dopenapi.generate.threads=<cores> - generation worker threads");
+        System.out.println("-Dopenapi.generate.queue=<2*threads> - fetched specs waiting for a generation worker");
+        System.out.println("-Dopenapi.generate.budget=64 - max MiB of spec documents waiting or being generated");
+        System.out.println("-Dopenapi.snapshot=<file> - read the registry from a snapshot file instead of the network");
+        System.out.println("-Dopenapi.generate.parallel=512 - min definitions or operations of a spec built in "
+                + "parallel, 0 means never");
+        System.out.println("-Dopenapi.cache=true - cache fetched specs on disk, revalidating them on each run");
+        System.out.println("-Dopenapi.cache.dir=~/.cache/autorest-openapi - spec cache directory");
+        System.out.println("-Dopenapi.cache.size=512 - max spec cache size in MiB");
+        System.out.println("-Dopenapi.watch.debounce=50 - millis without changes before regenerating in watch mode");
+        System.out.println("-Dopenapi.output=target - output directory, or a single .jar/.zip archive");
+        System.out.println("-Dopenapi.report=<file> - per spec metrics report, as csv if the file ends with .csv");
+        System.out.println("-Dopenapi.types=legacy - 'format' maps integer, number, boolean and date-time by format");
+        System.out.println("-Dopenapi.types.dateTime=java.lang.String - date-time type of the 'format' mapping");
+        System.out.println("-Dopenapi.streaming=false - array responses as Flowable, decoded element by element");
+        System.out.println("-Dopenapi.layout=nested - 'split' generates a top level class for each definition");
+        System.out.println("-Dopenapi.layout.tags=false - group operations by tag into a resource interface per tag");
+        System.out.println("-Dopenapi.caching=false - generate a response caching decorator of each interface");
+        System.out.println("-Dopenapi.compact=false - intern and compact the parsed specs, to hold more in memory");
+        System.out.println("-Dopenapi.shared=<package> - generate identical definitions of all specs once, in package");
+        System.out.println("-Dopenapi.jfr=false - emit a JFR event with the metrics of each spec");
     }
 
-    private static void generate(SpecData spec) {
+    /** Generates the spec into the sink, unless it is up to date, recording the stage metrics in the spec. */
+    public static void generate(SpecData spec, GeneratorOptions options, GenerationManifest manifest,
+            OutputSink sink) {
+        generate(spec, options, manifest, sink, null);
+    }
+
+    /** Generates the spec into the sink, moving its definitions to {@code shared} types if not null. */
+    public static void generate(SpecData spec, GeneratorOptions options, GenerationManifest manifest,
+            OutputSink sink, @Nullable SharedTypes shared) {
+        SpecMetrics metrics = spec.metrics;
         try {
             ClassName jaxRsTypeName = ClassName.get(spec.name.replace(".", "_"), "Api");
-            TypeSpec jaxRsTypeSpec = openApi2JaxRs(jaxRsTypeName, spec.doc);
-            JavaFile jaxRsFile = JavaFile.builder(jaxRsTypeName.packageName(), jaxRsTypeSpec).build();
-            jaxRsFile.writeTo(Paths.get("target"));
+            String hash = manifest.hash(spec.doc);
+            if (manifest.isUpToDate(spec.name, hash) && isGenerated(jaxRsTypeName, sink)) {
+                log.fine(spec.name + " is up to date");
+                metrics.upToDate = true;
+                return;
+            }
+            List<JavaFile> files = openApi2JaxRs(jaxRsTypeName, spec.doc, metrics, shared, options);
+            long start = System.nanoTime();
+            for (JavaFile file : files) metrics.writtenBytes += sink.write(file);
+            metrics.writeNanos = System.nanoTime() - start;
+            manifest.update(spec.name, hash);
         } catch (IOException e) {
             throw Throwables.propagate(e);
         }
     }
 
+    /**
+     * Regenerates the spec after a change from {@code previous}, returning the {@link OpenApiDiff} between both docs.
+     * Nothing is generated if the docs are semantically equal. With the split layout only the resource interfaces of
+     * the changed operations and the changed definitions are built and written again, and the sources of the removed
+     * ones are deleted. The nested layout has a single source, so any change regenerates it whole.
+     */
+    public static OpenApiDiff regenerate(SpecData previous, SpecData spec, GeneratorOptions options,
+            GenerationManifest manifest, OutputSink sink) {
+        RefIndex beforeRefs = new RefIndex(previous.doc), afterRefs = new RefIndex(spec.doc);
+        OperationIndex beforeOperations = new OperationIndex(previous.doc, beforeRefs);
+        OperationIndex afterOperations = new OperationIndex(spec.doc, afterRefs);
+        OpenApiDiff diff = OpenApiDiff.compare(previous.doc, beforeRefs, beforeOperations,
+                spec.doc, afterRefs, afterOperations);
+        ClassName api = ClassName.get(spec.name.replace(".", "_"), "Api");
+        try {
+            if (!isGenerated(api, sink) || (!diff.isEmpty() && !options.layout().split())) {
+                generate(spec, options, manifest, sink);
+                return diff;
+            }
+            if (diff.isEmpty()) {
+                log.fine(spec.name + " has no changes");
+                spec.metrics.upToDate = true;
+                manifest.update(spec.name, manifest.hash(spec.doc));
+                return diff;
+            }
+
+            Map<String, ClassName> beforeNames = definitions(api, previous.doc, beforeRefs, beforeOperations, options);
+            Map<String, ClassName> afterNames = definitions(api, spec.doc, afterRefs, afterOperations, options);
+            // a definition renamed to avoid a new resource interface, or back, changes the sources of its users
+            if (beforeNames.entrySet().stream().anyMatch(e -> afterNames.containsKey(e.getKey())
+                    && !afterNames.get(e.getKey()).equals(e.getValue()))) {
+                for (ClassName name : beforeNames.values()) {
+                    if (!afterNames.containsValue(name)) sink.delete(OutputSink.path(name.packageName(),
+                            name.simpleName()));
+                }
+                generate(spec, options, manifest, sink);
+                return diff;
+            }
+
+            Set<String> before = beforeRefs.definitions(), after = afterRefs.definitions();
+            // a new base path, or a definition added, removed or aliased, changes the methods of every operation
+            boolean all = !diff.changes(OpenApiDiff.Element.BASE_PATH).isEmpty()
+                    || diff.changes(OpenApiDiff.Element.DEFINITION).stream()
+                    .anyMatch(change -> !before.contains(change.key) || !after.contains(change.key));
+            Set<String> operations = diff.keys(OpenApiDiff.Element.OPERATION);
+            Predicate<String> changed = operation -> all || operations.contains(operation);
+            Set<ClassName> include = new HashSet<>();
+            if (all) include.add(api);
+            Set<ClassName> removed = resources(api, beforeOperations, options.layout(), changed, include);
+            removed.removeAll(resources(api, afterOperations, options.layout(), changed, include));
+            for (ClassName resource : removed) {
+                sink.delete(OutputSink.path(resource.packageName(), resource.simpleName()));
+                if (options.caching()) {
+                    sink.delete(OutputSink.path(resource.packageName(), "Caching" + resource.simpleName()));
+                }
+            }
+            for (OpenApiDiff.Change change : diff.changes(OpenApiDiff.Element.DEFINITION)) {
+                String name = change.key.substring(RefIndex.DEFINITIONS.length());
+                if (after.contains(change.key)) include.add(afterNames.get(name));
+                else if (beforeNames.containsKey(name)) {
+                    sink.delete(OutputSink.path(api.packageName(), beforeNames.get(name).simpleName()));
+                }
+            }
+
+            SpecMetrics metrics = spec.metrics;
+            List<JavaFile> files = openApi2JaxRs(api, spec.doc, afterRefs, afterOperations, metrics, null, options,
+                    include::contains);
+            long start = System.nanoTime();
+            for (JavaFile file : files) metrics.writtenBytes += sink.write(file);
+            metrics.writeNanos = System.nanoTime() - start;
+            manifest.update(spec.name, manifest.hash(spec.doc));
+            return diff;
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Deletes the sources generated for a spec that does not exist anymore, its resource interfaces, their caching
+     * decorators and its top level definitions, and removes the spec from the manifest. Shared types are kept, as other
+     * specs might use them.
+     */
+    public static void delete(SpecData spec, GeneratorOptions options, GenerationManifest manifest, OutputSink sink)
+            throws IOException {
+        ClassName api = ClassName.get(spec.name.replace(".", "_"), "Api");
+        RefIndex refs = new RefIndex(spec.doc);
+        OperationIndex operations = new OperationIndex(spec.doc, refs);
+        Set<ClassName> sources = resources(api, operations, options.layout(), operation -> false, new HashSet<>());
+        if (options.caching()) for (ClassName resource : new ArrayList<>(sources)) {
+            sources.add(ClassName.get(resource.packageName(), "Caching" + resource.simpleName()));
+        }
+        if (options.layout().split()) sources.addAll(definitions(api, spec.doc, refs, operations, options).values());
+        for (ClassName source : sources) sink.delete(OutputSink.path(source.packageName(), source.simpleName()));
+        manifest.remove(spec.name);
+    }
+
+    /**
+     * Deletes every source of the package of a spec whose doc is not available anymore, like a spec file removed
+     * between two builds, and removes the spec from the manifest. Shared types are kept, in their own package.
+     */
+    public static void delete(String spec, GenerationManifest manifest, OutputSink sink) throws IOException {
+        for (String path : sink.list(spec.replace(".", "_"))) sink.delete(path);
+        manifest.remove(spec);
+    }
+
+    /**
+     * True if the sources of the spec of {@code api} exist. Any source of its package is checked, as the split layout
+     * does not emit the {@code api} interface if no operation belongs to it.
+     */
+    private static boolean isGenerated(ClassName api, OutputSink sink) throws IOException {
+        return !sink.list(api.packageName()).isEmpty();
+    }
+
+    /** Resource interfaces of the doc, adding those with a {@code changed} operation to {@code include}. */
+    private static Set<ClassName> resources(ClassName api, OperationIndex operations, OutputLayout layout,
+            Predicate<String> changed, Set<ClassName> include) {
+        Set<ClassName> out = new HashSet<>();
+        if (!layout.split()) out.add(api); // the nested definitions are emitted in api anyway
+        for (OperationIndex.Entry operation : operations) {
+            ClassName resource = layout.resource(api, operation.operation);
+            out.add(resource);
+            if (changed.test(OpenApiDiff.key(operation))) include.add(resource);
+        }
+        return out;
+    }
+
     public static class SpecData {
         public String name;
         public String version;
+        public @Nullable String swaggerUrl;
+        public @Nullable String updated;
         public OpenApi.Doc doc;
-        public SpecData(String name, String version) { this.name = name; this.version = version; }
+        public final SpecMetrics metrics = new SpecMetrics();
+        public SpecData(String name, String version) {
+            this.name = name;
+            this.version = version;
+            metrics.spec = name;
+            metrics.version = version;
+        }
         public SpecData doc(OpenApi.Doc doc) { this.doc = doc; return this; }
         public static SpecData valueOf(String apiVersion) {
             String[] split = apiVersion.split("@");
@@ -97,34 +338,56 @@ public class Main {
         }
     }
 
-    public static Observable<SpecData> fetchAllSpecs(ApisGuru api) {
-        return api.list().flatMapIterable(HashMap::entrySet)
-                .map(entry -> new SpecData(entry.getKey(), entry.getValue().preferred))
-                .flatMap(spec -> fetchSpec(api, spec));
+    /**
+     * Fetches every preferred spec, snapshots are read locally without the registry rate and concurrency limits. A spec
+     * failing to fetch or parse is still emitted, without doc and with the error in its metrics, so it is reported.
+     */
+    public static Flowable<SpecData> fetchAllSpecs(ApisGuru api) {
+        FetchStage fetch = api instanceof SnapshotApisGuru ? FetchStage.local() : FetchStage.fromSystemProperties();
+        return fetchAllSpecs(api, fetch);
+    }
+
+    public static Flowable<SpecData> fetchAllSpecs(ApisGuru api, FetchStage fetch) {
+        String host = URI.create(APIS_GURU_URL).getHost();
+        Flowable<SpecData> list = api instanceof StreamingApisGuru ? ((StreamingApisGuru) api).preferred()
+                : api.list().toFlowable(BackpressureStrategy.BUFFER).flatMapIterable(HashMap::entrySet)
+                        .map(entry -> new SpecData(entry.getKey(), entry.getValue().preferred));
+        return list.compose(fetch.fetch(host, (SpecData spec) -> fetchSpec(api, spec)
+                .doOnError(e -> log.log(Level.WARNING, "fetch failed for " + spec.name, e))
+                .onErrorReturn(e -> {
+                    spec.doc = null;
+                    spec.metrics.error = e.toString();
+                    return spec;
+                })));
     }
 
     private static Observable<SpecData> fetchSpec(ApisGuru api, SpecData spec) {
+        if (api instanceof StreamingApisGuru) return ((StreamingApisGuru) api).fetch(spec);
         return api.spec(spec.name.replace(":", "/"), spec.version).map(spec::doc);
     }
 
-    private static Observable<SpecData> loadSpec(String uri) {
-        try (JsonConnection ctx = new JsonConnection((HttpURLConnection) new URI(uri).toURL().openConnection());
-                InputStream inputStream = ctx.connection.getInputStream()) {
+    static Observable<SpecData> loadSpec(String uri) {
+        try (JsonConnection ctx = new JsonConnection(new URI(uri).toURL().openConnection());
+                InputStream inputStream = ctx.open()) {
             SpecData spec = new SpecData("api", "0");
-            spec.doc = new Gson().fromJson(new InputStreamReader(inputStream), OpenApi.Doc.class);
+            spec.doc = SpecParser.readDoc(inputStream, spec.metrics);
             return Observable.just(spec);
         } catch (Exception e) {
             return Observable.error(e);
         }
     }
 
+    /** Any URL connection (http, file, jar...) negotiating JSON content, compressed if supported. */
     static class JsonConnection implements AutoCloseable {
-        final HttpURLConnection connection;
-        JsonConnection(HttpURLConnection connection) {
+        final URLConnection connection;
+        JsonConnection(URLConnection connection) {
             this.connection = connection;
-            connection.setRequestProperty("Accept", "application/json");
+            Compression.accept(connection);
+        }
+        InputStream open() throws IOException { return Compression.open(connection); }
+        @Override public void close() {
+            if (connection instanceof HttpURLConnection) ((HttpURLConnection) connection).disconnect();
         }
-        @Override public void close() { connection.disconnect(); }
     }
 
     static boolean isObject(OpenApi.Schema schema) { return schema != null && "object".equals(schema.type); }
@@ -142,14 +405,37 @@ public class Main {
             abstract TypeName wrap(TypeName t);
         }
 
+        final RefIndex refs;
+        final TypeMapping mapping;
         final Map<String, Def> types = new TreeMap<>();
+        // concurrent, types and methods of huge specs are built in parallel
+        private final Map<String, TypeName> refTypes = new ConcurrentHashMap<>();
+
+        TypeResolver(RefIndex refs, TypeMapping mapping) {
+            this.refs = refs;
+            this.mapping = mapping;
+        }
 
         void put(String ref, ClassName className, OpenApi.Schema schema) {
             types.put(ref, new Def(className, schema));
         }
 
+        /**
+         * Type of the canonical definition of {@code ref}, memoized so each distinct ref is resolved once. Concurrent
+         * callers might resolve the same ref at once, but always to the same type.
+         */
+        TypeName type(String ref) {
+            TypeName type = refTypes.get(ref);
+            if (type == null) {
+                String canonical = refs.definition(ref);
+                Def def = canonical == null ? null : types.get(canonical);
+                refTypes.put(ref, type = def == null ? ClassName.OBJECT : def.name);
+            }
+            return type;
+        }
+
         TypeName type(OpenApi.Parameter p) {
-            if (p.schema != null) return type(p.schema, Collection.LIST);
+            if (p.schema != null) return type(p.schema, Collection.LIST, p.required);
             else {
                 final OpenApi.Schema schema = new OpenApi.Schema();
                 schema.$ref = p.$ref;
@@ -158,22 +444,21 @@ public class Main {
                 schema.description = p.description;
                 schema.enumValues = p.enumValues;
                 schema.items = p.items;
-                return type(schema, Collection.LIST);
+                return type(schema, Collection.LIST, p.required);
             }
         }
 
-        TypeName type(@Nullable OpenApi.Schema schema) {return type(schema, Collection.ARRAY);}
-        TypeName type(@Nullable OpenApi.Schema schema, final Collection arrayType) {
+        TypeName type(@Nullable OpenApi.Schema schema) {return type(schema, Collection.ARRAY, false);}
+        /** Type of {@code schema}, {@code required} values might use primitive types. */
+        TypeName type(@Nullable OpenApi.Schema schema, final Collection arrayType, boolean required) {
             TypeName pType = TypeName.OBJECT;
             if (schema == null) return pType;
             if (!isNullOrEmpty(schema.$ref)) {
-                pType = ofNullable(types.get(schema.$ref)).map(d -> d.name).orElse(ClassName.OBJECT);
+                pType = type(schema.$ref);
             } else switch (nullToEmpty(schema.type)) {
                 case "": pType = TypeName.VOID.box(); break;
-                case "string": pType = TypeName.get(String.class); break;
-                case "integer": pType = TypeName.get(Number.class); break;
-                case "number": pType = TypeName.get(Number.class); break;
-                case "array": pType = arrayType.wrap(type(schema.items)); break;
+                case "array": pType = arrayType.wrap(type(schema.items, Collection.ARRAY, true)); break;
+                default: pType = firstNonNull(mapping.type(schema.type, schema.format, required), pType);
             }
             return pType;
         }
@@ -185,8 +470,11 @@ public class Main {
                 this.name = name;
                 this.schema = schema;
             }
+            /** Top level types are shared types, all the others are nested in the api interface. */
+            boolean nested() { return name.enclosingClassName() != null; }
             TypeSpec type() {
-                TypeSpec.Builder out = TypeSpec.classBuilder(name).addModifiers(Modifier.PUBLIC, Modifier.STATIC);
+                TypeSpec.Builder out = TypeSpec.classBuilder(name).addModifiers(Modifier.PUBLIC);
+                if (nested()) out.addModifiers(Modifier.STATIC);
                 out.addAnnotation(AnnotationSpec.builder(JsType.class)
                         .addMember("isNative", "$L", "true")
                         .addMember("namespace", "$T.$L", JsPackage.class, "GLOBAL")
@@ -197,7 +485,8 @@ public class Main {
                     String paramName = e.getKey();
                     OpenApi.Schema paramSchema = e.getValue();
                     String description = firstNonNull(emptyToNull(paramSchema.description), paramName);
-                    TypeName paramType = TypeResolver.this.type(paramSchema);
+                    boolean required = schema.required != null && Arrays.asList(schema.required).contains(paramName);
+                    TypeName paramType = TypeResolver.this.type(paramSchema, Collection.ARRAY, required);
                     out.addField(FieldSpec.builder(paramType, paramName, Modifier.PUBLIC)
                             .addJavadoc("$L\n\n<pre>$L</pre>\n", description, paramSchema)
                             .build());
@@ -207,98 +496,274 @@ public class Main {
         }
     }
 
-    private static TypeSpec openApi2JaxRs(ClassName api, OpenApi.Doc doc) {
+    static TypeResolver resolver(ClassName api, OpenApi.Doc doc) {
+        RefIndex refs = new RefIndex(doc);
+        return resolver(api, doc, refs, new OperationIndex(doc, refs), null, OPTIONS);
+    }
+
+    static TypeResolver resolver(ClassName api, OpenApi.Doc doc, RefIndex refs, OperationIndex operations,
+            @Nullable SharedTypes shared, GeneratorOptions options) {
+        TypeResolver resolver = new TypeResolver(refs, options.types());
+        SchemaHash hashes = shared == null ? null : new SchemaHash(refs);
+        Map<String, ClassName> names = shared == null ? definitions(api, doc, refs, operations, options) : emptyMap();
+        if (doc.definitions != null) doc.definitions.entrySet().stream()
+                .filter(e -> !resolver.refs.isAlias(e.getKey()))
+                .forEach(e -> {
+                    String ref = RefIndex.DEFINITIONS + e.getKey();
+                    ClassName name = hashes != null ? shared.name(e.getKey(), hashes.definition(ref))
+                            : names.get(e.getKey());
+                    resolver.put(ref, name, e.getValue());
+                });
+        return resolver;
+    }
+
+    /** Class of each non alias definition, never the one of a resource interface or decorator of the doc. */
+    static Map<String, ClassName> definitions(ClassName api, OpenApi.Doc doc, RefIndex refs,
+            OperationIndex operations, GeneratorOptions options) {
+        if (doc.definitions == null) return emptyMap();
+        OutputLayout layout = options.layout();
+        List<String> names = doc.definitions.keySet().stream().filter(name -> !refs.isAlias(name)).collect(toList());
+        Set<ClassName> resources = new HashSet<>();
+        if (layout.split()) for (OperationIndex.Entry operation : operations) {
+            resources.add(layout.resource(api, operation.operation));
+        }
+        return layout.definitions(api, names, resources, options.caching());
+    }
+
+    static TypeSpec openApi2JaxRs(ClassName api, OpenApi.Doc doc) {
+        return openApi2JaxRs(api, doc, new SpecMetrics(), null, OPTIONS).get(0).typeSpec;
+    }
+
+    /**
+     * Generated sources of the spec, the {@code api} interface first, followed by the tag resource interfaces and the
+     * top level definitions, depending on the layout. The split layout only emits the resource interfaces with
+     * operations, so the {@code api} one is skipped if every operation is tagged. Shared definitions are written to
+     * {@code shared}.
+     */
+    static List<JavaFile> openApi2JaxRs(ClassName api, OpenApi.Doc doc, SpecMetrics metrics,
+            @Nullable SharedTypes shared, GeneratorOptions options) {
+        long start = System.nanoTime();
+        RefIndex refs = new RefIndex(doc);
+        OperationIndex operations = new OperationIndex(doc, refs);
+        long indexNanos = System.nanoTime() - start;
+        List<JavaFile> out = openApi2JaxRs(api, doc, refs, operations, metrics, shared, options, type -> true);
+        metrics.resolveNanos += indexNanos;
+        return out;
+    }
+
+    /**
+     * Generated sources of the spec, only the top level types accepted by {@code include} are built. The ref and
+     * operation indexes of the doc are built once by the caller and shared by every stage.
+     */
+    static List<JavaFile> openApi2JaxRs(ClassName api, OpenApi.Doc doc, RefIndex refs, OperationIndex operations,
+            SpecMetrics metrics, @Nullable SharedTypes shared, GeneratorOptions options,
+            Predicate<ClassName> include) {
         log.info(doc.info.title);
 
         //Map<String, OpenApi.Tag> tags = Stream.of(doc.tags).collect(toMap(t -> t.name, identity()));
-        Map<String, OpenApi.Parameter> parameters = firstNonNull(doc.parameters, emptyMap());
-        TypeResolver resolver = new TypeResolver();
-        if (doc.definitions != null) doc.definitions.entrySet()
-                .forEach(e -> resolver.put("#/definitions/" + e.getKey(), api.nestedClass(e.getKey()), e.getValue()));
-        checkUnsupportedSchemaUsage(doc);
-
-        doc.paths.entrySet().forEach(path -> path.getValue().operations().entrySet().forEach(oe -> {
-            OpenApi.Operation o = oe.getValue();
-            System.out.println(oe.getKey() + " " + path.getKey() + " " + o);
-        }));
-
-        return TypeSpec.interfaceBuilder(api)
-                .addModifiers(Modifier.PUBLIC)
-                .addAnnotation(annotation(SuppressWarnings.class, "unused"))
-                .addAnnotation(annotation(Path.class, doc.basePath))
-
-                .addTypes(() -> resolver.types.values().stream().map(TypeResolver.Def::type).iterator())
-                .addMethods(() -> doc.paths.entrySet().stream()
-                        .flatMap(pathEntry -> pathEntry.getValue().operations().entrySet().stream().map(operation -> {
-                            String path = pathEntry.getKey();
-                            String method = operation.getKey();
-                            String oName = Stream.of((method.toLowerCase() + "/" + path).split("/"))
-                                    .filter(s -> !(Strings.isNullOrEmpty(s) || s.startsWith("{")))
-                                    .collect(joining("_"));
-                            return MethodSpec.methodBuilder(oName)
-                                    .addJavadoc("$L\n\n<pre>$L</pre>\n", operation.getValue().description,
-                                            operation.getValue().toString())
-                                    .addAnnotation(annotation(Path.class, path))
-                                    .addAnnotation(ClassName.get("javax.ws.rs", method))
-                                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
-                                    .addParameters(() -> operation.getValue().parameters(parameters::get).map(p -> {
-                                        String pName = p.name.replace("-", "").replace(" ", "_");
-                                        ParameterSpec.Builder out = ParameterSpec.builder(resolver.type(p), pName);
-                                        AnnotationSpec annotation = null;
-                                        switch (nullToEmpty(p.in)) {
-                                            case "query": annotation = annotation(QueryParam.class, p.name); break;
-                                            case "path": annotation = annotation(PathParam.class, p.name); break;
-                                            case "header": annotation = annotation(HeaderParam.class, p.name); break;
-                                            case "body": break;
-                                            default: log.warning("unsupported 'in' value for " + p);
-                                        }
-                                        if (annotation != null) out.addAnnotation(annotation);
-                                        if (!p.required) out.addAnnotation(Nullable.class);
-                                        return out.build();
-                                    }).iterator())
-                                    .returns(operation.getValue().responses
-                                            .entrySet().stream().filter(e -> e.getKey().equals("200")).findAny()
-                                            .map(e -> {
-                                                OpenApi.Response response = e.getValue();
-                                                OpenApi.Schema s = response.schema;
-                                                if (s == null) return observable(TypeName.VOID.box());
-                                                if ("array".equals(s.type)) return observable(resolver.type(s.items));
-                                                else return single(resolver.type(s));
-                                            })
-                                            .orElseGet(() -> observable(TypeName.VOID.box())))
-                                    .build();
-                        })).iterator())
+        long start = System.nanoTime();
+        TypeResolver resolver = resolver(api, doc, refs, operations, shared, options);
+        metrics.warnings = checkUnsupportedSchemaUsage(operations, resolver.refs);
+        metrics.operations = operations.entries().size();
+        metrics.definitions = resolver.types.size();
+        metrics.resolveNanos = System.nanoTime() - start;
+
+        if (log.isLoggable(Level.FINE)) operations.forEach(operation -> log.fine(operation.toString()));
 
+        start = System.nanoTime();
+        Map<ClassName, List<OperationIndex.Entry>> resources = new LinkedHashMap<>();
+        resources.put(api, new ArrayList<>());
+        for (OperationIndex.Entry operation : operations) {
+            ClassName resource = options.layout().resource(api, operation.operation);
+            List<OperationIndex.Entry> group = resources.get(resource);
+            if (group == null) resources.put(resource, group = new ArrayList<>());
+            group.add(operation);
+        }
+
+        List<JavaFile> out = new ArrayList<>();
+        resources.forEach((name, group) -> {
+            if (!include.test(name) || (group.isEmpty() && options.layout().split())) return;
+            TypeSpec.Builder resource = TypeSpec.interfaceBuilder(name)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addAnnotation(annotation(SuppressWarnings.class, "unused"))
+                    .addAnnotation(annotation(Path.class, doc.basePath));
+            if (name.equals(api)) resource.addTypes(build(resolver.types.values().stream()
+                    .filter(TypeResolver.Def::nested).collect(toList()), TypeResolver.Def::type, options));
+            resource.addMethods(build(group, operation -> method(operation, resolver, options), options));
+            TypeSpec type = resource.build();
+            out.add(JavaFile.builder(name.packageName(), type).build());
+            if (options.caching()) {
+                out.add(JavaFile.builder(name.packageName(), caching(name, type, group, resolver)).build());
+            }
+        });
+        List<TypeResolver.Def> topLevel = resolver.types.values().stream()
+                .filter(def -> !def.nested() && include.test(def.name)).collect(toList());
+        // shared types are only built if not emitted yet, so they are defined lazily and in order
+        if (shared != null) topLevel.forEach(def -> shared.define(def.name, def::type));
+        else build(topLevel, TypeResolver.Def::type, options).forEach(type -> out.add(
+                JavaFile.builder(api.packageName(), type).build()));
+        metrics.buildNanos = System.nanoTime() - start;
+        return out;
+    }
+
+    /**
+     * Maps each item, in parallel if there are at least {@link GeneratorOptions#parallel} items. The result keeps the
+     * order of the items anyway, so the output is identical to the sequential one.
+     */
+    private static <T, R> List<R> build(List<T> items, Function<T, R> mapper, GeneratorOptions options) {
+        boolean parallel = options.parallel() > 0 && items.size() >= options.parallel();
+        return (parallel ? items.parallelStream() : items.stream()).map(mapper).collect(toList());
+    }
+
+    private static MethodSpec method(OperationIndex.Entry operation, TypeResolver resolver,
+            GeneratorOptions options) {
+        String oName = Stream.of((operation.method.name().toLowerCase() + "/" + operation.path).split("/"))
+                .filter(s -> !(Strings.isNullOrEmpty(s) || s.startsWith("{")))
+                .collect(joining("_"));
+        return MethodSpec.methodBuilder(oName)
+                .addJavadoc("$L\n\n<pre>$L</pre>\n", operation.operation.description,
+                        operation.operation.toString())
+                .addAnnotation(annotation(Path.class, operation.path))
+                .addAnnotation(ClassName.get("javax.ws.rs", operation.method.name()))
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameters(() -> operation.parameters.stream().map(p -> {
+                    String pName = p.name.replace("-", "").replace(" ", "_");
+                    ParameterSpec.Builder out = ParameterSpec.builder(resolver.type(p), pName);
+                    AnnotationSpec annotation = null;
+                    switch (nullToEmpty(p.in)) {
+                        case "query": annotation = annotation(QueryParam.class, p.name); break;
+                        case "path": annotation = annotation(PathParam.class, p.name); break;
+                        case "header": annotation = annotation(HeaderParam.class, p.name); break;
+                        case "body": break;
+                        default: log.warning("unsupported 'in' value for " + p);
+                    }
+                    if (annotation != null) out.addAnnotation(annotation);
+                    if (!p.required) out.addAnnotation(Nullable.class);
+                    return out.build();
+                }).iterator())
+                .returns(operation.operation.responses
+                        .entrySet().stream().filter(e -> e.getKey().equals("200")).findAny()
+                        .map(e -> {
+                            OpenApi.Response response = resolver.refs.response(e.getValue());
+                            OpenApi.Schema s = response.schema;
+                            if (s == null) return observable(TypeName.VOID.box());
+                            if ("array".equals(s.type)) return options.streaming()
+                                    ? flowable(resolver.type(s.items))
+                                    : observable(resolver.type(s.items));
+                            else return single(resolver.type(s));
+                        })
+                        .orElseGet(() -> observable(TypeName.VOID.box())))
                 .build();
     }
 
+    /**
+     * Decorator of the {@code resource} interface caching the responses of its cacheable operations. Other GET
+     * operations are delegated, and any other operation invalidates the cache when it is called and again when its
+     * request terminates.
+     */
+    private static TypeSpec caching(ClassName resource, TypeSpec type, List<OperationIndex.Entry> operations,
+            TypeResolver resolver) {
+        ClassName name = ClassName.get(resource.packageName(), "Caching" + resource.simpleName());
+        TypeSpec.Builder out = TypeSpec.classBuilder(name)
+                .addModifiers(Modifier.PUBLIC)
+                .addSuperinterface(resource)
+                .addJavadoc("Caches the responses of the idempotent operations of {@link $T}.\n", resource)
+                .addField(resource, "delegate", Modifier.PRIVATE, Modifier.FINAL)
+                .addField(ResponseCache.class, "cache", Modifier.PRIVATE, Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addModifiers(Modifier.PUBLIC)
+                        .addParameter(resource, "delegate")
+                        .addParameter(ResponseCache.class, "cache")
+                        .addStatement("this.delegate = delegate")
+                        .addStatement("this.cache = cache")
+                        .build());
+        for (int i = 0; i < operations.size(); i++) {
+            OperationIndex.Entry operation = operations.get(i);
+            MethodSpec method = type.methodSpecs.get(i);
+            MethodSpec.Builder decorated = MethodSpec.methodBuilder(method.name)
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(method.returnType);
+            method.parameters.forEach(p -> decorated.addParameter(p.type, p.name));
+            String args = method.parameters.stream().map(p -> p.name).collect(joining(", "));
+            String call = "delegate." + method.name + "(" + args + ")";
+            TypeName raw = method.returnType instanceof ParameterizedTypeName
+                    ? ((ParameterizedTypeName) method.returnType).rawType : method.returnType;
+            boolean single = raw.equals(ClassName.get(Single.class));
+            if (isCacheable(operation, resolver) && (single || raw.equals(ClassName.get(Observable.class)))) {
+                decorated.addStatement("return cache.$L($T.key($S$L), () -> $L)", single ? "single" : "observable",
+                        ResponseCache.class, operation.method + " " + operation.path, args.isEmpty() ? "" : ", " + args,
+                        call);
+            } else if (operation.method != OperationIndex.Method.GET) {
+                // requests are lazy, so responses cached while the call is in flight are invalidated when it ends
+                decorated.addStatement("cache.invalidateAll()");
+                decorated.addStatement("return $L.doFinally(cache::invalidateAll)", call);
+            } else {
+                decorated.addStatement("return $L", call);
+            }
+            out.addMethod(decorated.build());
+        }
+        return out.build();
+    }
+
+    /**
+     * GET operations with a 200 response body, unless the response is session specific (it sets a cookie), varies by
+     * request header ({@code Vary}, keys only include the arguments) or declares a {@code Cache-Control} forbidding
+     * shared caches ({@code no-store} or {@code private}).
+     */
+    private static boolean isCacheable(OperationIndex.Entry operation, TypeResolver resolver) {
+        if (operation.method != OperationIndex.Method.GET || operation.operation.responses == null) return false;
+        OpenApi.Response ok = operation.operation.responses.get("200");
+        if (ok == null) return false;
+        OpenApi.Response response = resolver.refs.response(ok);
+        if (response.schema == null) return false;
+        if (response.headers == null) return true;
+        for (Map.Entry<String, OpenApi.Header> header : response.headers.entrySet()) {
+            String name = header.getKey();
+            if (name.equalsIgnoreCase("Set-Cookie") || name.equalsIgnoreCase("Vary")) return false;
+            if (name.equalsIgnoreCase("Cache-Control") && forbidsCaching(header.getValue())) return false;
+        }
+        return true;
+    }
+
+    /** True if any value of a {@code Cache-Control} header, declared or described, is no-store or private. */
+    private static boolean forbidsCaching(@Nullable OpenApi.Header header) {
+        if (header == null) return false;
+        Stream<String> values = Stream.concat(
+                Stream.of(header.defaultValue, header.description),
+                header.enumValues == null ? Stream.empty() : Stream.of(header.enumValues));
+        return values.filter(Objects::nonNull).map(value -> value.toLowerCase(Locale.ROOT))
+                .anyMatch(value -> value.contains("no-store") || value.contains("private"));
+    }
+
     private static ParameterizedTypeName observable(TypeName type) {
-        return ParameterizedTypeName.get(ClassName.get(Observable.class), type);
+        return ParameterizedTypeName.get(ClassName.get(Observable.class), type.box());
+    }
+
+    private static ParameterizedTypeName flowable(TypeName type) {
+        return ParameterizedTypeName.get(ClassName.get(Flowable.class), type.box());
     }
 
     private static ParameterizedTypeName single(TypeName type) {
-        return ParameterizedTypeName.get(ClassName.get(Single.class), type);
+        return ParameterizedTypeName.get(ClassName.get(Single.class), type.box());
     }
 
-    private static void checkUnsupportedSchemaUsage(OpenApi.Doc doc) {
-        doc.paths.entrySet().stream().flatMap(path -> {
-            String PATH = "#/paths/" + trimSlash(path.getKey());
+    /** Logs each unsupported schema usage, returning the number of warnings. */
+    private static int checkUnsupportedSchemaUsage(OperationIndex operations, RefIndex refs) {
+        List<String> unsupported = operations.stream().flatMap(operation -> {
+            String OPERATION = "#/paths/" + trimSlash(operation.path) + "/operations/" + operation.method;
             return Stream.concat(
-                    Stream.of(firstNonNull(path.getValue().parameters, new OpenApi.Parameter[0]))
-                            .filter(p -> isObject(p.schema)).map(p -> PATH + "/parameters/" + p.name),
-                    path.getValue().operations().entrySet().stream().flatMap(operation -> {
-                        String OPERATION = PATH + "/operations/" + operation.getKey();
-                        return Stream.concat(
-                                Stream.of(firstNonNull(operation.getValue().parameters, new OpenApi.Parameter[0]))
-                                        .filter(i -> isObject(i.schema))
-                                        .map(i -> OPERATION + "/parameters/" + i.name),
-                                operation.getValue().responses.entrySet().stream()
-                                        .filter(i -> isObject(i.getValue().schema))
-                                        .map(i -> OPERATION + "/responses/" + i.getKey()));
-                    }));
-        }).forEach(ref -> log.warning("Unsupported type at " + ref + " (Types should be declared in "
+                    operation.parameters.stream()
+                            .filter(i -> isObject(i.schema))
+                            .map(i -> OPERATION + "/parameters/" + i.name),
+                    operation.operation.responses.entrySet().stream()
+                            .filter(i -> isObject(refs.response(i.getValue()).schema))
+                            .map(i -> OPERATION + "/responses/" + i.getKey()));
+        }).collect(toList());
+        unsupported.forEach(ref -> log.warning("Unsupported type at " + ref + " (Types should be declared in "
                 + "#/definitions/{ref}, so the 'ref' is used as type name. Creating anonymous, random named and "
                 + "duplicated types look like a waste of time, so please normalize your schema using definitions!)"));
+        return unsupported.size();
     }
 
     private static AnnotationSpec annotation(Class<?> type, String name) {
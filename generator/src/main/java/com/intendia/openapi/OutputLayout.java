@@ -0,0 +1,94 @@
+package com.intendia.openapi;
+
+import com.squareup.javapoet.ClassName;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Layout of the generated sources of each spec. The nested layout generates a single {@code Api} interface with a
+ * nested class for each definition. The split layout generates a top level class for each definition instead, so
+ * large specs are compiled in parallel and incrementally, and a change in a definition only recompiles its users.
+ * Operations can also be grouped by their first tag into a {@code <Tag>Api} resource interface for each tag, untagged
+ * operations stay in the {@code Api} interface, which the split layout skips if there are none. Top level definitions
+ * never replace a resource interface or its caching decorator, those clashing with one are renamed with a
+ * {@code Model} suffix.
+ * <p>
+ * Configurable using system properties {@code openapi.layout} ({@code nested}, the default, or {@code split}) and
+ * {@code openapi.layout.tags} (set to {@code true} to group operations by tag).
+ */
+public class OutputLayout {
+    public static final OutputLayout NESTED = new OutputLayout(false, false);
+
+    private final boolean split;
+    private final boolean tags;
+
+    public OutputLayout(boolean split, boolean tags) {
+        this.split = split;
+        this.tags = tags;
+    }
+
+    public static OutputLayout fromSystemProperties() {
+        return of(System.getProperty("openapi.layout", "nested"), Boolean.getBoolean("openapi.layout.tags"));
+    }
+
+    /** Layout named {@code layout}, {@code nested} or {@code split}, grouping operations by tag if {@code tags}. */
+    public static OutputLayout of(String layout, boolean tags) {
+        if (!layout.equals("nested") && !layout.equals("split")) {
+            throw new IllegalArgumentException("unsupported openapi.layout " + layout);
+        }
+        return new OutputLayout(layout.equals("split"), tags);
+    }
+
+    /** Options affecting the generated sources, to be included in the generation manifest configuration. */
+    public String config() { return (split ? ";layout=split" : "") + (tags ? ";layout.tags" : ""); }
+
+    /** True if definitions are top level classes, instead of nested in the {@code api} interface. */
+    public boolean split() { return split; }
+
+    /** Interface of the {@code operation}, the {@code api} interface or the resource interface of its first tag. */
+    public ClassName resource(ClassName api, OpenApi.Operation operation) {
+        if (!tags || operation.tags == null || operation.tags.length == 0) return api;
+        String name = Stream.of(operation.tags[0].split("[^A-Za-z0-9]+"))
+                .filter(s -> !s.isEmpty())
+                .map(s -> Character.toUpperCase(s.charAt(0)) + s.substring(1))
+                .collect(Collectors.joining());
+        if (name.isEmpty()) return api;
+        return ClassName.get(api.packageName(), (Character.isDigit(name.charAt(0)) ? "_" : "") + name + "Api");
+    }
+
+    /**
+     * Class of each definition, by name in {@code definitions} order, nested in the {@code api} interface or top level
+     * in its package. Top level names clashing with one of the {@code resources}, or with its caching decorator if
+     * {@code caching}, get a {@code Model} suffix, and a number if that one is also taken.
+     */
+    public Map<String, ClassName> definitions(ClassName api, Collection<String> definitions,
+            Collection<ClassName> resources, boolean caching) {
+        Map<String, ClassName> out = new LinkedHashMap<>();
+        if (!split) {
+            for (String name : definitions) out.put(name, api.nestedClass(name));
+            return out;
+        }
+        Set<String> reserved = new HashSet<>();
+        for (ClassName resource : resources) {
+            reserved.add(resource.simpleName());
+            if (caching) reserved.add("Caching" + resource.simpleName());
+        }
+        Set<String> taken = new HashSet<>(definitions);
+        taken.addAll(reserved);
+        for (String name : definitions) {
+            String simpleName = name;
+            if (reserved.contains(name)) {
+                simpleName = name + "Model";
+                for (int i = 2; taken.contains(simpleName); i++) simpleName = name + "Model" + i;
+                taken.add(simpleName);
+            }
+            out.put(name, ClassName.get(api.packageName(), simpleName));
+        }
+        return out;
+    }
+}
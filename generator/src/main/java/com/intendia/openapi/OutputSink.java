@@ -0,0 +1,167 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.squareup.javapoet.JavaFile;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Destination of the generated sources. Sinks are thread-safe, so generation workers can write concurrently, and
+ * count the bytes and entries written.
+ */
+public abstract class OutputSink implements AutoCloseable {
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+
+    /** One file for each type below {@code dir}, in its package directory. */
+    public static OutputSink directory(Path dir) { return new Directory(dir); }
+
+    /** Single jar/zip {@code archive} with an entry for each type, streamed through a buffered channel. */
+    public static OutputSink archive(Path archive) throws IOException { return new Archive(archive); }
+
+    /** Keeps the generated sources in memory, mostly useful for tests. */
+    public static Memory memory() { return new Memory(); }
+
+    /** Archive sink if {@code output} is a {@code .jar} or {@code .zip} file, directory sink otherwise. */
+    public static OutputSink of(Path output) throws IOException {
+        return isArchive(output) ? archive(output) : directory(output);
+    }
+
+    public static boolean isArchive(Path output) {
+        String name = output.getFileName().toString();
+        return name.endsWith(".jar") || name.endsWith(".zip");
+    }
+
+    /** Writes the source of {@code file}, returning its size in bytes. */
+    public int write(JavaFile file) throws IOException {
+        StringBuilder source = new StringBuilder();
+        file.writeTo(source);
+        byte[] content = source.toString().getBytes(UTF_8);
+        write(path(file), content);
+        bytes.addAndGet(content.length);
+        entries.incrementAndGet();
+        return content.length;
+    }
+
+    /** True if the file of {@code path} was generated before, so it does not need to be written again. */
+    public abstract boolean exists(String path);
+
+    protected abstract void write(String path, byte[] content) throws IOException;
+
+    /** Deletes the file of {@code path}, if any, because its type is not generated anymore. */
+    public abstract void delete(String path) throws IOException;
+
+    /** Paths of the generated sources of a package, excluding its subpackages. */
+    public abstract List<String> list(String packageName) throws IOException;
+
+    public long bytes() { return bytes.get(); }
+
+    public long entries() { return entries.get(); }
+
+    @Override public void close() throws IOException {}
+
+    @Override public String toString() {
+        return getClass().getSimpleName().toLowerCase() + " sink, " + entries() + " entries, " + bytes() + " bytes";
+    }
+
+    /** Relative path of the source of a top level type, using '/' as separator. */
+    public static String path(String packageName, String typeName) {
+        return packageName.isEmpty() ? typeName + ".java" : packageName.replace('.', '/') + "/" + typeName + ".java";
+    }
+
+    static String path(JavaFile file) { return path(file.packageName, file.typeSpec.name); }
+
+    static List<String> list(Collection<String> paths, String packageName) {
+        String prefix = path(packageName, "");
+        prefix = prefix.substring(0, prefix.length() - ".java".length());
+        List<String> out = new ArrayList<>();
+        for (String path : paths) {
+            if (path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0) out.add(path);
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    static class Directory extends OutputSink {
+        private final Path dir;
+        Directory(Path dir) { this.dir = dir; }
+        @Override public boolean exists(String path) { return Files.exists(dir.resolve(path)); }
+        @Override protected void write(String path, byte[] content) throws IOException {
+            Path file = dir.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, content);
+        }
+        /** Deletes the file and its package directories left empty, e.g. when a whole spec is deleted. */
+        @Override public void delete(String path) throws IOException {
+            Path file = dir.resolve(path);
+            if (!Files.deleteIfExists(file)) return;
+            for (Path parent = file.getParent(); !parent.equals(dir); parent = parent.getParent()) {
+                try (Stream<Path> children = Files.list(parent)) { if (children.findAny().isPresent()) return; }
+                Files.delete(parent);
+            }
+        }
+        @Override public List<String> list(String packageName) throws IOException {
+            Path pkg = dir.resolve(packageName.replace('.', '/'));
+            if (!Files.isDirectory(pkg)) return Collections.emptyList();
+            try (Stream<Path> files = Files.list(pkg)) {
+                return files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(".java"))
+                        .sorted().map(name -> path(packageName, name.substring(0, name.length() - ".java".length())))
+                        .collect(Collectors.toList());
+            }
+        }
+    }
+
+    static class Archive extends OutputSink {
+        private final ZipOutputStream out;
+        private final Set<String> written = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        Archive(Path archive) throws IOException {
+            if (archive.getParent() != null) Files.createDirectories(archive.getParent());
+            FileChannel channel = FileChannel.open(archive, CREATE, WRITE, TRUNCATE_EXISTING);
+            this.out = new ZipOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+        /** The archive is created from scratch, so only entries written by this sink exist. */
+        @Override public boolean exists(String path) { return written.contains(path); }
+        @Override protected synchronized void write(String path, byte[] content) throws IOException {
+            if (!written.add(path)) throw new IOException("duplicated archive entry " + path);
+            out.putNextEntry(new ZipEntry(path));
+            out.write(content);
+            out.closeEntry();
+        }
+        /** Entries already streamed cannot be removed, and the others do not exist. */
+        @Override public void delete(String path) throws IOException {
+            if (written.contains(path)) throw new IOException("archive entry " + path + " cannot be deleted");
+        }
+        @Override public List<String> list(String packageName) { return list(written, packageName); }
+        @Override public synchronized void close() throws IOException { out.close(); }
+    }
+
+    public static class Memory extends OutputSink {
+        private final Map<String, String> files = new ConcurrentHashMap<>();
+        /** Generated sources by path. */
+        public Map<String, String> files() { return files; }
+        @Override public boolean exists(String path) { return files.containsKey(path); }
+        @Override protected void write(String path, byte[] content) { files.put(path, new String(content, UTF_8)); }
+        @Override public void delete(String path) { files.remove(path); }
+        @Override public List<String> list(String packageName) { return list(files.keySet(), packageName); }
+    }
+}
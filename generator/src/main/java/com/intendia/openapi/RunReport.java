@@ -0,0 +1,59 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nullable;
+
+/**
+ * Machine-readable report of a generation run, with the {@link SpecMetrics} of every spec, failed ones included.
+ * Written as JSON, or as CSV if the report file ends with {@code .csv}. Each spec can also be emitted as a JFR event,
+ * so the specs that dominate the runtime show up in a flight recording next to the JVM events.
+ * <p>
+ * Configurable using system properties {@code openapi.report} (report file, disabled by default) and
+ * {@code openapi.jfr} (set to {@code true} to emit JFR events, requires a JFR capable JVM).
+ */
+public class RunReport implements AutoCloseable {
+    private final @Nullable Path file;
+    private final boolean jfr;
+    private final Queue<SpecMetrics> specs = new ConcurrentLinkedQueue<>();
+
+    public RunReport(@Nullable Path file, boolean jfr) {
+        this.file = file;
+        this.jfr = jfr;
+    }
+
+    public static RunReport fromSystemProperties() {
+        String file = System.getProperty("openapi.report");
+        return new RunReport(file == null ? null : Paths.get(file), Boolean.getBoolean("openapi.jfr"));
+    }
+
+    public void add(SpecMetrics metrics) {
+        specs.add(metrics);
+        if (jfr) JfrSpecEvent.commit(metrics);
+    }
+
+    @Override public void close() throws IOException {
+        if (file == null) return;
+        List<SpecMetrics> specs = new ArrayList<>(this.specs);
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file, UTF_8)) {
+            if (file.getFileName().toString().endsWith(".csv")) {
+                out.write(SpecMetrics.CSV_HEADER + "\n");
+                for (SpecMetrics spec : specs) out.write(spec.toCsv() + "\n");
+            } else {
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, specs);
+            }
+        }
+    }
+}
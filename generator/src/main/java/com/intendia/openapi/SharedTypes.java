@@ -0,0 +1,70 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Definitions shared by all the specs of a run. Each definition is generated as a top level type of a common package,
+ * named after the definition and its {@link SchemaHash}, and referenced from each {@code Api} interface instead of
+ * being nested in it. Identical definitions of different specs (like the error and paging types of the APIs of the
+ * same vendor) are therefore emitted only once.
+ * <p>
+ * Type names also hash the generator version and configuration (like the type mapping), so a generator emitting
+ * types differently never reuses the types written by a previous one, and use 64 bits of the hash, enough to not
+ * collide across the whole registry.
+ * <p>
+ * Enabled using the system property {@code openapi.shared} (package of the shared types, disabled by default).
+ */
+public class SharedTypes {
+    private final String packageName;
+    private final String salt;
+    private final OutputSink sink;
+    private final Set<String> emitted = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * @param salt generator version (and configuration) affecting the emitted types, hashed into every type name
+     */
+    public SharedTypes(String packageName, String salt, OutputSink sink) {
+        this.packageName = packageName;
+        this.salt = salt;
+        this.sink = sink;
+    }
+
+    /** Shared types of the {@code openapi.shared} package, {@code config} is the generator configuration. */
+    public static @Nullable SharedTypes fromSystemProperties(OutputSink sink, String config) {
+        String packageName = System.getProperty("openapi.shared");
+        if (packageName == null || packageName.isEmpty()) return null;
+        return new SharedTypes(packageName, GenerationManifest.GENERATOR_VERSION + config, sink);
+    }
+
+    public String packageName() { return packageName; }
+
+    /** Shared type name of the definition {@code name} with structural {@code hash}. */
+    public ClassName name(String name, HashCode hash) {
+        HashCode salted = Hashing.sha256().newHasher().putString(salt, UTF_8).putBytes(hash.asBytes()).hash();
+        return ClassName.get(packageName, name + "_" + salted.toString().substring(0, 16));
+    }
+
+    /** Writes the shared type {@code name}, unless it was already written by this or a previous run. */
+    public void define(ClassName name, Supplier<TypeSpec> type) {
+        String path = OutputSink.path(name.packageName(), name.simpleName());
+        if (!emitted.add(path) || sink.exists(path)) return;
+        try {
+            sink.write(JavaFile.builder(name.packageName(), type.get()).build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
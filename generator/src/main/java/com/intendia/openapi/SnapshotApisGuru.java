@@ -0,0 +1,206 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.io.ByteStreams;
+import com.intendia.openapi.Main.SpecData;
+import io.reactivex.Observable;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * {@link ApisGuru} reading from an offline registry snapshot, a single file with the registry list and the preferred
+ * version of every spec, so full runs need no network access. Entries are gzip compressed and located through an
+ * index, each one is memory mapped only when it is read.
+ * <p>
+ * Snapshot layout: the header ({@code OAPISNAP} magic, format version and index offset), the entries, and the index
+ * (registry base URL, and the URL, offset and length of each entry). Entries are keyed by the URL they were fetched
+ * from, so the snapshot serves exactly the requests a live run would do.
+ * <p>
+ * Created by the {@code snapshot <file>} command, and used instead of the live registry if the system property
+ * {@code openapi.snapshot} is set to the snapshot file.
+ */
+public class SnapshotApisGuru extends CachedApisGuru implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(SnapshotApisGuru.class.getName());
+    private static final byte[] MAGIC = "OAPISNAP".getBytes(US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 8;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<String, long[]> index;
+
+    private SnapshotApisGuru(String baseUrl, Path file, FileChannel channel, Map<String, long[]> index) {
+        super(baseUrl, null);
+        this.file = file;
+        this.channel = channel;
+        this.index = index;
+    }
+
+    public static @Nullable SnapshotApisGuru fromSystemProperties() throws IOException {
+        String file = System.getProperty("openapi.snapshot");
+        return file == null ? null : open(Paths.get(file));
+    }
+
+    public static SnapshotApisGuru open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+            ((Buffer) header).flip(); // Buffer, so JDK 9+ builds link to the Java 8 method
+            byte[] magic = new byte[MAGIC.length];
+            if (header.remaining() < HEADER_SIZE || !Arrays.equals(MAGIC, get(header, magic))) {
+                throw new IOException(file + " is not a registry snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported snapshot version " + version + " of " + file);
+            long indexOffset = header.getLong();
+
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(indexOffset))));
+            String baseUrl = in.readUTF();
+            int count = in.readInt();
+            Map<String, long[]> index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) index.put(in.readUTF(), new long[] { in.readLong(), in.readInt() });
+            return new SnapshotApisGuru(baseUrl, file, channel, index);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static byte[] get(ByteBuffer buffer, byte[] dst) { buffer.get(dst); return dst; }
+
+    /** Number of snapshot entries, the registry list and one for each spec. */
+    public int size() { return index.size(); }
+
+    @Override protected InputStream open(String url, @Nullable String updated) throws IOException {
+        long[] entry = index.get(url);
+        if (entry == null) throw new FileNotFoundException(url + " is not in snapshot " + file);
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, entry[0], entry[1]);
+        return Compression.decode(new ByteBufferInputStream(mapped), null);
+    }
+
+    @Override public void close() throws IOException { channel.close(); }
+
+    /**
+     * Snapshots the list and the preferred version of each spec of {@code registry} into {@code file}, fetching the
+     * specs through {@code fetch}. Specs failing to fetch are logged and skipped. Returns the number of specs.
+     */
+    public static int write(CachedApisGuru registry, Path file, FetchStage fetch) throws IOException {
+        String listUrl = registry.listUrl();
+        byte[] list;
+        try (InputStream in = registry.open(listUrl, null)) {
+            list = ByteStreams.toByteArray(in);
+        }
+        String host = URI.create(registry.baseUrl()).getHost();
+        Map<String, long[]> index = new LinkedHashMap<>();
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path tmp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            out.position(HEADER_SIZE);
+            append(out, index, listUrl, gzip(new ByteArrayInputStream(list)));
+            Iterable<Map.Entry<String, byte[]>> specs = SpecParser
+                    .preferredSpecs(() -> new ByteArrayInputStream(list))
+                    .compose(fetch.fetch(host, (SpecData spec) -> Observable.fromCallable(() -> {
+                        String url = registry.specUrl(spec);
+                        try (InputStream in = registry.open(url, spec.updated)) {
+                            return entry(url, gzip(in));
+                        }
+                    }).doOnError(e -> log.log(Level.WARNING, "snapshot failed for " + spec.name, e))
+                            .onErrorResumeNext(Observable.empty())))
+                    .blockingIterable(1);
+            for (Map.Entry<String, byte[]> spec : specs) append(out, index, spec.getKey(), spec.getValue());
+
+            long indexOffset = out.position();
+            ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(indexBytes);
+            data.writeUTF(registry.baseUrl());
+            data.writeInt(index.size());
+            for (Map.Entry<String, long[]> e : index.entrySet()) {
+                data.writeUTF(e.getKey());
+                data.writeLong(e.getValue()[0]);
+                data.writeInt((int) e.getValue()[1]);
+            }
+            writeFully(out, ByteBuffer.wrap(indexBytes.toByteArray()));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(VERSION).putLong(indexOffset);
+            ((Buffer) header).flip();
+            out.position(0);
+            writeFully(out, header);
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        return index.size() - 1;
+    }
+
+    private static Map.Entry<String, byte[]> entry(String url, byte[] content) {
+        return new AbstractMap.SimpleImmutableEntry<>(url, content);
+    }
+
+    private static void append(FileChannel out, Map<String, long[]> index, String url, byte[] content)
+            throws IOException {
+        if (index.containsKey(url)) return; // specs sharing the same location are stored once
+        index.put(url, new long[] { out.position(), content.length });
+        writeFully(out, ByteBuffer.wrap(content));
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) out.write(buffer);
+    }
+
+    private static byte[] gzip(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 1 << 16)) {
+            ByteStreams.copy(in, gzip);
+        }
+        return out.toByteArray();
+    }
+
+    /** Reads a mapped entry, without copying it to the heap. */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        ByteBufferInputStream(ByteBuffer buffer) { this.buffer = buffer; }
+        @Override public int read() { return buffer.hasRemaining() ? buffer.get() & 0xff : -1; }
+        @Override public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+        @Override public int available() { return buffer.remaining(); }
+    }
+}
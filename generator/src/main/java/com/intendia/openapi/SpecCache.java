@@ -0,0 +1,182 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.hash.HashingInputStream;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Persistent content-addressed cache of remote specs. Each URL is mapped to the SHA-256 of its last known content,
+ * stored once in {@code objects/} no matter how many URLs share it. A cached URL is served from disk without any
+ * request if the registry {@code updated} timestamp did not change, otherwise it is revalidated using
+ * {@code If-None-Match} and {@code If-Modified-Since}. Least recently used entries are evicted as soon as the stored
+ * objects exceed the size limit. Specs are downloaded compressed if the server supports it, and stored decompressed.
+ * Non HTTP URLs, like local files and archive entries, are read directly and never cached.
+ * <p>
+ * Configurable using system properties {@code openapi.cache} (set to {@code false} to disable),
+ * {@code openapi.cache.dir} (default {@code ~/.cache/autorest-openapi}) and {@code openapi.cache.size} (max size in
+ * MiB, default 512).
+ */
+public class SpecCache implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(SpecCache.class.getName());
+    private static final Gson gson = new Gson();
+
+    static class Entry {
+        String sha256;
+        @Nullable String etag;
+        @Nullable String lastModified;
+        @Nullable String updated;
+        long size;
+        long accessed;
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final Map<String, Entry> index;
+
+    public SpecCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir.resolve("objects"));
+        this.index = loadIndex(dir.resolve("index.json"));
+    }
+
+    public static @Nullable SpecCache fromSystemProperties() throws IOException {
+        if (!Boolean.parseBoolean(System.getProperty("openapi.cache", "true"))) return null;
+        Path defaultDir = Paths.get(System.getProperty("user.home"), ".cache", "autorest-openapi");
+        Path dir = Paths.get(System.getProperty("openapi.cache.dir", defaultDir.toString()));
+        return new SpecCache(dir, Long.getLong("openapi.cache.size", 512) * 1024 * 1024);
+    }
+
+    /**
+     * Opens the content of {@code url}, from disk if possible. If {@code updated} is not null and matches the value
+     * used the last time this URL was stored, the cached content is returned without revalidation.
+     */
+    public InputStream open(String url, @Nullable String updated) throws IOException {
+        Entry entry = index.get(url);
+        if (entry != null && updated != null && updated.equals(entry.updated) && Files.exists(object(entry))) {
+            return hit(entry);
+        }
+
+        URLConnection opened = new URL(url).openConnection();
+        if (!(opened instanceof HttpURLConnection)) return Compression.open(opened);
+        HttpURLConnection connection = (HttpURLConnection) opened;
+        try {
+            Compression.accept(connection);
+            if (entry != null && entry.etag != null) connection.setRequestProperty("If-None-Match", entry.etag);
+            if (entry != null && entry.lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", entry.lastModified);
+            }
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null && Files.exists(object(entry))) {
+                entry.updated = updated;
+                return hit(entry);
+            }
+            if (status != HttpURLConnection.HTTP_OK) throw new IOException("unexpected " + status + " for " + url);
+
+            Entry stored = new Entry();
+            stored.etag = connection.getHeaderField("ETag");
+            stored.lastModified = connection.getHeaderField("Last-Modified");
+            stored.updated = updated;
+            Path tmp = Files.createTempFile(dir, "download", ".tmp");
+            try (HashingInputStream in = new HashingInputStream(Hashing.sha256(), Compression.open(connection))) {
+                stored.size = Files.copy(in, tmp, REPLACE_EXISTING);
+                stored.sha256 = in.hash().toString();
+                // stored and evicted atomically, so a concurrent eviction never deletes an object not indexed yet
+                synchronized (this) {
+                    Files.move(tmp, object(stored), REPLACE_EXISTING, ATOMIC_MOVE);
+                    index.put(url, stored);
+                    InputStream out = hit(stored);
+                    if (size() > maxBytes) evict();
+                    return out;
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private InputStream hit(Entry entry) throws IOException {
+        entry.accessed = System.currentTimeMillis();
+        return Files.newInputStream(object(entry));
+    }
+
+    private Path object(Entry entry) { return dir.resolve("objects").resolve(entry.sha256); }
+
+    /** Size of the stored objects, each one counted once however many URLs share it. */
+    private long size() {
+        Map<String, Long> objects = new HashMap<>();
+        for (Entry entry : index.values()) objects.put(entry.sha256, entry.size);
+        return objects.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** Removes least recently used entries, and the objects no longer referenced, until the size limit is met. */
+    synchronized void evict() throws IOException {
+        List<Map.Entry<String, Entry>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(comparingLong(e -> -e.getValue().accessed));
+        Set<String> kept = new HashSet<>();
+        long size = 0;
+        for (Map.Entry<String, Entry> e : entries) {
+            if (kept.contains(e.getValue().sha256)) continue;
+            if (size + e.getValue().size <= maxBytes) {
+                kept.add(e.getValue().sha256);
+                size += e.getValue().size;
+            } else {
+                index.remove(e.getKey());
+            }
+        }
+        try (Stream<Path> objects = Files.list(dir.resolve("objects"))) {
+            for (Path object : (Iterable<Path>) objects::iterator) {
+                if (!kept.contains(object.getFileName().toString())) Files.deleteIfExists(object);
+            }
+        }
+    }
+
+    @Override public synchronized void close() throws IOException {
+        evict();
+        Path tmp = Files.createTempFile(dir, "index", ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, UTF_8)) {
+            gson.toJson(index, out);
+        }
+        Files.move(tmp, dir.resolve("index.json"), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private static Map<String, Entry> loadIndex(Path file) throws IOException {
+        Map<String, Entry> index = new ConcurrentHashMap<>();
+        if (!Files.exists(file)) return index;
+        try (Reader in = Files.newBufferedReader(file, UTF_8)) {
+            Map<String, Entry> stored = gson.fromJson(in, new TypeToken<Map<String, Entry>>() {}.getType());
+            if (stored != null) index.putAll(stored);
+        } catch (RuntimeException e) {
+            log.warning("ignoring corrupted cache index " + file + ": " + e);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,45 @@
+package com.intendia.openapi;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import javax.annotation.Nullable;
+
+/** Timing (nanos) and size metrics of each pipeline stage of one spec. */
+@JsonPropertyOrder({"spec", "version", "fetchNanos", "bytes", "parseNanos", "resolveNanos", "buildNanos",
+        "writeNanos", "writtenBytes", "operations", "definitions", "warnings", "upToDate", "error"})
+public class SpecMetrics {
+    public String spec;
+    public String version;
+    /** Time to open the spec, connection and response headers or cache lookup. */
+    public long fetchNanos;
+    /** Size of the spec document. */
+    public long bytes;
+    /** Time to read and bind the document, including the transfer as it is streamed into the parser. */
+    public long parseNanos;
+    /** Time to index refs and operations and to register the definitions. */
+    public long resolveNanos;
+    /** Time to build the TypeSpec, which resolves the type of each field, parameter and response. */
+    public long buildNanos;
+    public long writeNanos;
+    public long writtenBytes;
+    public int operations;
+    public int definitions;
+    /** Unsupported (anonymous object) schema usages. */
+    public int warnings;
+    /** Generation was skipped because the spec did not change since the previous run. */
+    public boolean upToDate;
+    /** Failure of the generation, null if the spec was generated, the stages after the failure are not measured. */
+    public @Nullable String error;
+
+    static final String CSV_HEADER = "spec,version,fetchNanos,bytes,parseNanos,resolveNanos,buildNanos,"
+            + "writeNanos,writtenBytes,operations,definitions,warnings,upToDate,error";
+
+    String toCsv() {
+        return String.join(",", csv(spec), csv(version), "" + fetchNanos, "" + bytes, "" + parseNanos,
+                "" + resolveNanos, "" + buildNanos, "" + writeNanos, "" + writtenBytes, "" + operations,
+                "" + definitions, "" + warnings, "" + upToDate, csv(error));
+    }
+
+    private static String csv(String value) {
+        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
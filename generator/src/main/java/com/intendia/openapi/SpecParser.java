@@ -0,0 +1,145 @@
+package com.intendia.openapi;
+
+import static com.fasterxml.jackson.core.JsonToken.END_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.google.common.base.Stopwatch;
+import com.google.common.io.CountingInputStream;
+import com.intendia.openapi.Main.SpecData;
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Token-streaming parsers for the registry list and specs. Nothing is buffered or materialized beyond what the
+ * generator uses, unused subtrees (non-preferred versions, {@code info}, {@code examples}, vendor extensions) are
+ * skipped token by token.
+ * <p>
+ * All loaders share the same readers. They are thread-safe and built eagerly, including the deserializers of the
+ * whole {@link OpenApi} model, which use bytecode generated accessors instead of reflection.
+ */
+public class SpecParser {
+    private static final JsonFactory json = new JsonFactory();
+
+    @JsonIgnoreProperties("examples") interface SkipExamples {}
+
+    private static final ObjectMapper mapper = new ObjectMapper(json)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .addMixIn(OpenApi.Response.class, SkipExamples.class)
+            .registerModule(new AfterburnerModule());
+    private static final ObjectReader docReader = mapper.readerFor(OpenApi.Doc.class);
+    private static final ObjectReader listReader = mapper.readerFor(ApisGuru.ApiMap.class);
+
+    private static final boolean compact = Boolean.getBoolean("openapi.compact");
+    private static final LongAdder parsedBytes = new LongAdder();
+    private static final LongAdder parsedNanos = new LongAdder();
+
+    /** Reads and closes the doc {@code in}, compacted if {@code openapi.compact} is enabled. */
+    public static OpenApi.Doc readDoc(InputStream in) throws IOException {
+        return readDoc(in, null);
+    }
+
+    /** Reads and closes the doc {@code in}, recording its size and parse time in {@code metrics}. */
+    public static OpenApi.Doc readDoc(InputStream in, @Nullable SpecMetrics metrics) throws IOException {
+        OpenApi.Doc doc = read(docReader, in, metrics);
+        return compact ? OpenApiCompactor.compact(doc) : doc;
+    }
+
+    /** Reads and closes the whole apis.guru list {@code in}, prefer {@link #preferredSpecs} for large lists. */
+    public static ApisGuru.ApiMap readList(InputStream in) throws IOException {
+        return read(listReader, in, null);
+    }
+
+    private static <T> T read(ObjectReader reader, InputStream in, @Nullable SpecMetrics metrics)
+            throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try (CountingInputStream counting = new CountingInputStream(in);
+                JsonParser parser = json.createParser(counting)) {
+            T value = reader.readValue(parser);
+            long bytes = counting.getCount(), nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+            parsedBytes.add(bytes);
+            parsedNanos.add(nanos);
+            if (metrics != null) { metrics.bytes = bytes; metrics.parseNanos = nanos; }
+            return value;
+        }
+    }
+
+    /** Parse throughput of every doc and list read since startup. */
+    public static String throughput() {
+        double mb = parsedBytes.sum() / (1024. * 1024.), seconds = parsedNanos.sum() / 1e9;
+        return String.format("parsed %.1f MiB in %.2f s (%.1f MiB/s)", mb, seconds, seconds == 0 ? 0 : mb / seconds);
+    }
+
+    /**
+     * Emits the preferred version of each API of an apis.guru {@code list.json}, including its {@code swaggerUrl}
+     * and {@code updated} timestamp. The list is parsed on demand, one API for each requested item.
+     */
+    public static Flowable<SpecData> preferredSpecs(Callable<InputStream> list) {
+        return Flowable.generate(() -> {
+            JsonParser parser = json.createParser(list.call());
+            expect(parser, parser.nextToken() == START_OBJECT, "list object");
+            return parser;
+        }, (JsonParser parser, Emitter<SpecData> out) -> {
+            if (parser.nextToken() == END_OBJECT) { out.onComplete(); return; }
+            expect(parser, parser.currentToken() == FIELD_NAME, "api name");
+            String api = parser.getCurrentName();
+            expect(parser, parser.nextToken() == START_OBJECT, "api object");
+            SpecData spec = preferred(api, parser);
+            if (spec != null) out.onNext(spec);
+        }, JsonParser::close);
+    }
+
+    /** Parses the api object at the current token, skipping everything except the preferred version location. */
+    private static @Nullable SpecData preferred(String api, JsonParser parser) throws IOException {
+        String preferred = null;
+        Map<String, SpecData> versions = new HashMap<>();
+        while (parser.nextToken() == FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("preferred")) preferred = parser.getValueAsString();
+            else if (field.equals("versions") && parser.currentToken() == START_OBJECT) {
+                while (parser.nextToken() == FIELD_NAME) {
+                    String version = parser.getCurrentName();
+                    parser.nextToken();
+                    if (preferred != null && !preferred.equals(version)) parser.skipChildren();
+                    else versions.put(version, version(api, version, parser));
+                }
+            } else parser.skipChildren();
+        }
+        return preferred == null ? null : versions.getOrDefault(preferred, new SpecData(api, preferred));
+    }
+
+    private static SpecData version(String api, String version, JsonParser parser) throws IOException {
+        SpecData spec = new SpecData(api, version);
+        if (parser.currentToken() != START_OBJECT) { parser.skipChildren(); return spec; }
+        while (parser.nextToken() == FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("swaggerUrl")) spec.swaggerUrl = parser.getValueAsString();
+            else if (field.equals("updated")) spec.updated = parser.getValueAsString();
+            else parser.skipChildren();
+        }
+        return spec;
+    }
+
+    private static void expect(JsonParser parser, boolean condition, String expected) throws JsonParseException {
+        if (condition) return;
+        throw new JsonParseException(parser, "expected " + expected + ", found " + parser.currentToken());
+    }
+}
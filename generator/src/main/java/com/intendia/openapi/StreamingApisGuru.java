@@ -0,0 +1,15 @@
+package com.intendia.openapi;
+
+import com.intendia.openapi.Main.SpecData;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+
+/** {@link ApisGuru} able to list the preferred version of each API without materializing the whole registry. */
+public interface StreamingApisGuru extends ApisGuru {
+
+    /** Preferred version of each listed API, parsed on demand as downstream requests more specs. */
+    Flowable<SpecData> preferred();
+
+    /** Fetches the doc of a spec, using its {@code swaggerUrl} and {@code updated} timestamp if available. */
+    Observable<SpecData> fetch(SpecData spec);
+}
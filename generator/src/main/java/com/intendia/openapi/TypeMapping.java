@@ -0,0 +1,74 @@
+package com.intendia.openapi;
+
+import static com.google.common.base.Strings.nullToEmpty;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.TypeName;
+import javax.annotation.Nullable;
+
+/**
+ * Java types of the primitive schema types. The legacy mapping uses {@link Number} for every {@code integer} and
+ * {@code number}, so generated clients box every value and handle numbers generically. The format mapping follows the
+ * schema {@code format} instead ({@code int32} to {@code int}, {@code int64} to {@code long}, {@code float},
+ * {@code double}, {@code boolean}, and {@code date-time} to a configurable type), using primitives for required
+ * values and their boxed types for optional ones. An {@code integer} without format is an {@code int}, and a
+ * {@code number} without format is a {@code double}.
+ * <p>
+ * Configurable using system properties {@code openapi.types} ({@code legacy}, the default, or {@code format}) and
+ * {@code openapi.types.dateTime} (type of {@code date-time} strings in the format mapping, default
+ * {@code java.lang.String}).
+ */
+public class TypeMapping {
+    public static final TypeMapping LEGACY = new TypeMapping(false, ClassName.get(String.class));
+
+    private final boolean formats;
+    private final ClassName dateTime;
+
+    public TypeMapping(boolean formats, ClassName dateTime) {
+        this.formats = formats;
+        this.dateTime = dateTime;
+    }
+
+    public static TypeMapping fromSystemProperties() {
+        return of(System.getProperty("openapi.types", "legacy"),
+                System.getProperty("openapi.types.dateTime", "java.lang.String"));
+    }
+
+    /** Mapping named {@code types}, {@code legacy} or {@code format} using {@code dateTime} for date-time strings. */
+    public static TypeMapping of(String types, String dateTime) {
+        switch (types) {
+            case "legacy": return LEGACY;
+            case "format": return new TypeMapping(true, ClassName.bestGuess(dateTime));
+            default: throw new IllegalArgumentException("unsupported openapi.types " + types);
+        }
+    }
+
+    /** Options affecting the generated types, to be included in the generation manifest configuration. */
+    public String config() { return formats ? ";types=format;dateTime=" + dateTime : ""; }
+
+    /**
+     * Type of a primitive schema, or null if {@code type} is not primitive.
+     *
+     * @param required whether the value is always present, so it can use a primitive type
+     */
+    public @Nullable TypeName type(@Nullable String type, @Nullable String format, boolean required) {
+        switch (nullToEmpty(type)) {
+            case "string":
+                return formats && "date-time".equals(format) ? dateTime : TypeName.get(String.class);
+            case "integer":
+                if (!formats) return TypeName.get(Number.class);
+                return nullable("int64".equals(format) ? TypeName.LONG : TypeName.INT, required);
+            case "number":
+                if (!formats) return TypeName.get(Number.class);
+                return nullable("float".equals(format) ? TypeName.FLOAT : TypeName.DOUBLE, required);
+            case "boolean":
+                return formats ? nullable(TypeName.BOOLEAN, required) : null;
+            default:
+                return null;
+        }
+    }
+
+    private static TypeName nullable(TypeName primitive, boolean required) {
+        return required ? primitive : primitive.box();
+    }
+}
@@ -0,0 +1,133 @@
+package com.intendia.openapi;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.google.common.base.Stopwatch;
+import com.intendia.openapi.Main.SpecData;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Long-running generation mode, watches a directory of {@code *.json} (or {@code *.json.gz}) specs and regenerates
+ * each spec as soon as it changes. Changes are debounced, so an editor writing a file in several steps triggers a
+ * single regeneration, and only the changed specs are parsed again. Every spec is generated once at startup, so the
+ * JVM, the parser and the generator are warm before the first edit, and parsed docs are kept in memory for the whole
+ * session. Each changed spec is compared with its previous version using {@link OpenApiDiff}, so only the sources
+ * affected by the change are written again, and nothing at all if the change is not relevant to the generated code.
+ * Deleting a spec deletes its generated sources.
+ * <p>
+ * The debounce delay is configurable using the {@code openapi.watch.debounce} system property (millis, default 50).
+ */
+public class WatchMode implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(WatchMode.class.getName());
+
+    private final Path dir;
+    private final long debounceMillis;
+    private final GeneratorOptions options;
+    private final GenerationManifest manifest;
+    private final OutputSink sink;
+    private final WatchService watcher;
+    private final Map<Path, SpecData> specs = new ConcurrentHashMap<>();
+
+    public WatchMode(Path dir, long debounceMillis, GeneratorOptions options, GenerationManifest manifest,
+            OutputSink sink) throws IOException {
+        this.dir = dir;
+        this.debounceMillis = debounceMillis;
+        this.options = options;
+        this.manifest = manifest;
+        this.sink = sink;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    }
+
+    public static WatchMode fromSystemProperties(Path dir, GeneratorOptions options, GenerationManifest manifest,
+            OutputSink sink) throws IOException {
+        return new WatchMode(dir, Long.getLong("openapi.watch.debounce", 50), options, manifest, sink);
+    }
+
+    /** Generates every spec in the directory, then regenerates changed specs until the thread is interrupted. */
+    public void run() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(WatchMode::isSpec).forEach(this::regenerate);
+        }
+        manifest.save();
+        log.info("watching " + dir.toAbsolutePath() + " for spec changes");
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watcher.take();
+                // keep collecting events until the directory stays quiet for the debounce delay
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            try (Stream<Path> files = Files.list(dir)) { files.forEach(changed::add); }
+                        } else {
+                            changed.add(dir.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                    key = watcher.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                changed.stream().filter(WatchMode::isSpec).forEach(this::regenerate);
+                manifest.save();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void regenerate(Path file) {
+        if (!Files.exists(file)) {
+            SpecData previous = specs.remove(file);
+            if (previous != null) try {
+                Main.delete(previous, options, manifest, sink);
+                log.info(previous.name + " deleted");
+            } catch (IOException e) {
+                log.log(Level.WARNING, "deletion failed for " + file, e);
+            }
+            return;
+        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            String name = file.getFileName().toString().replaceFirst("\\.json(\\.gz)?$", "");
+            SpecData spec = new SpecData(name, "0")
+                    .doc(SpecParser.readDoc(Compression.decode(Files.newInputStream(file), null)));
+            SpecData previous = specs.put(file, spec);
+            String changes = "";
+            if (previous == null) Main.generate(spec, options, manifest, sink);
+            else {
+                OpenApiDiff diff = Main.regenerate(previous, spec, options, manifest, sink);
+                if (diff.isEmpty()) { log.info(name + " has no relevant changes"); return; }
+                if (log.isLoggable(Level.FINE)) diff.changes().forEach(change -> log.fine(name + " " + change));
+                changes = ", " + diff.changes().size() + " changes";
+            }
+            log.info(name + " regenerated in " + stopwatch.elapsed(TimeUnit.MILLISECONDS) + " ms" + changes);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "regeneration failed for " + file, e);
+        }
+    }
+
+    private static boolean isSpec(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".json") || name.endsWith(".json.gz");
+    }
+
+    @Override public void close() throws IOException { watcher.close(); }
+}
@@ -0,0 +1,117 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.intendia.openapi.Main.SpecData;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Compressed specs served by a local stub registry, and loaded from local files and archive entries. */
+public class CompressionTest {
+    private static final byte[] SPEC = ("{\"swagger\":\"2.0\",\"info\":{\"title\":\"Petstore\",\"version\":\"1.0\"},"
+            + "\"paths\":{}}").getBytes(UTF_8);
+    private static final String[] ENCODINGS = { "gzip", "zlib", "deflate" };
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final List<String> acceptEncodings = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serve("/gzip.json", "gzip", gzip(SPEC));
+        serve("/zlib.json", "deflate", deflate(SPEC, false));
+        serve("/deflate.json", "deflate", deflate(SPEC, true));
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    @After public void stopServer() { server.stop(0); }
+
+    @Test public void jsonConnectionDecodesEveryEncoding() {
+        for (String encoding : ENCODINGS) {
+            SpecData spec = Main.loadSpec(baseUrl + encoding + ".json").blockingFirst();
+            assertEquals(encoding, "Petstore", spec.doc.info.title);
+        }
+        assertAcceptedEncodings();
+    }
+
+    @Test public void cachedApisGuruDecodesEveryEncoding() {
+        CachedApisGuru registry = new CachedApisGuru(baseUrl, null);
+        for (String encoding : ENCODINGS) {
+            SpecData spec = new SpecData("petstore", "1.0");
+            spec.swaggerUrl = baseUrl + encoding + ".json";
+            assertEquals(encoding, "Petstore", registry.fetch(spec).blockingFirst().doc.info.title);
+        }
+        assertAcceptedEncodings();
+    }
+
+    @Test public void loadsGzipFile() throws IOException {
+        File file = tmp.newFile("petstore.json.gz");
+        Files.write(file.toPath(), gzip(SPEC));
+        assertEquals("Petstore", Main.loadSpec(file.toURI().toString()).blockingFirst().doc.info.title);
+    }
+
+    @Test public void loadsGzipArchiveEntry() throws IOException {
+        File archive = tmp.newFile("specs.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("petstore.json.gz"));
+            zip.write(gzip(SPEC));
+            zip.closeEntry();
+        }
+        String uri = "jar:" + archive.toURI() + "!/petstore.json.gz";
+        assertEquals("Petstore", Main.loadSpec(uri).blockingFirst().doc.info.title);
+    }
+
+    private void assertAcceptedEncodings() {
+        assertEquals(ENCODINGS.length, acceptEncodings.size());
+        for (String accepted : acceptEncodings) assertEquals(Compression.ACCEPT_ENCODING, accepted);
+    }
+
+    private void serve(String path, String encoding, byte[] content) {
+        server.createContext(path, exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) { out.write(content); }
+        });
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) { gzip.write(content); }
+        return out.toByteArray();
+    }
+
+    /** Zlib wrapped deflate stream, as the spec requires, or the raw deflate stream some servers send instead. */
+    private static byte[] deflate(byte[] content, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) { deflate.write(content); }
+        deflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package com.intendia.openapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpecCacheTest {
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        for (String name : new String[] { "a", "b" }) server.createContext("/" + name, exchange -> {
+            byte[] content = body(name);
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) { out.write(content); }
+        });
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    @After public void stopServer() { server.stop(0); }
+
+    @Test public void readsLocalFilesWithoutCaching() throws IOException {
+        File file = tmp.newFile("petstore.json");
+        Files.write(file.toPath(), body("file"));
+        Path dir = tmp.newFolder("cache").toPath();
+        try (SpecCache cache = new SpecCache(dir, 1024)) {
+            assertEquals("file", read(cache.open(file.toURI().toString(), null)));
+            assertEquals(0, objects(dir));
+        }
+    }
+
+    @Test public void evictsAsSoonAsTheLimitIsExceeded() throws IOException {
+        Path dir = tmp.newFolder("cache").toPath();
+        try (SpecCache cache = new SpecCache(dir, 150)) {
+            assertEquals("a", read(cache.open(baseUrl + "a", null)));
+            assertEquals(1, objects(dir));
+            assertEquals("b", read(cache.open(baseUrl + "b", null)));
+            assertEquals(1, objects(dir));
+        }
+    }
+
+    /** Body of 100 bytes, {@code name} padded with spaces. */
+    private static byte[] body(String name) {
+        byte[] out = new byte[100];
+        Arrays.fill(out, (byte) ' ');
+        System.arraycopy(name.getBytes(UTF_8), 0, out, 0, name.length());
+        return out;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream body = in) { return new String(ByteStreams.toByteArray(body), UTF_8).trim(); }
+    }
+
+    private static long objects(Path dir) throws IOException {
+        try (Stream<Path> objects = Files.list(dir.resolve("objects"))) { return objects.count(); }
+    }
+}
@@ -0,0 +1,190 @@
+package com.intendia.openapi.maven;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.intendia.openapi.Compression;
+import com.intendia.openapi.GenerationManifest;
+import com.intendia.openapi.GeneratorOptions;
+import com.intendia.openapi.Main;
+import com.intendia.openapi.Main.SpecData;
+import com.intendia.openapi.OutputLayout;
+import com.intendia.openapi.OutputSink;
+import com.intendia.openapi.SpecParser;
+import com.intendia.openapi.TypeMapping;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Generates the JAX-RS interface of each {@code *.json} (or gzip compressed {@code *.json.gz}) OpenAPI spec of
+ * {@link #specDirectory}, using the spec file name as package name. The generator options are the parameters of the
+ * plugin, with the same names and defaults as the system properties of the command line.
+ * <p>
+ * The specs (name, size and modification time) and the generator version and configuration are fingerprinted, and
+ * the whole execution is skipped if nothing changed since the previous build. Otherwise the specs are generated in
+ * parallel, and the generation manifest still skips the specs whose content did not change. The sources of the specs
+ * removed from {@link #specDirectory} since the previous build are deleted.
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    /** Directory containing the {@code *.json} and {@code *.json.gz} specs. */
+    @Parameter(defaultValue = "${project.basedir}/src/main/openapi", property = "openapi.specDirectory")
+    File specDirectory;
+
+    /** Directory where the sources are generated, added as compile source root. */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/openapi",
+            property = "openapi.outputDirectory")
+    File outputDirectory;
+
+    /** Number of specs generated in parallel, 0 means one per available processor. */
+    @Parameter(defaultValue = "0", property = "openapi.threads")
+    int threads;
+
+    /** Java types of the primitive schema types, {@code legacy} or {@code format}. */
+    @Parameter(defaultValue = "legacy", property = "openapi.types")
+    String types;
+
+    /** Type of {@code date-time} strings in the {@code format} types. */
+    @Parameter(defaultValue = "java.lang.String", property = "openapi.types.dateTime")
+    String dateTime;
+
+    /** Layout of the generated sources, {@code nested} or {@code split} in a top level class for each definition. */
+    @Parameter(defaultValue = "nested", property = "openapi.layout")
+    String layout;
+
+    /** Group operations by their first tag into a resource interface for each tag. */
+    @Parameter(defaultValue = "false", property = "openapi.layout.tags")
+    boolean layoutTags;
+
+    /** Array responses as {@code Flowable}, decoded element by element. */
+    @Parameter(defaultValue = "false", property = "openapi.streaming")
+    boolean streaming;
+
+    /** Generate a response caching decorator of each interface. */
+    @Parameter(defaultValue = "false", property = "openapi.caching")
+    boolean caching;
+
+    /** Min definitions or operations of a spec built in parallel, 0 means never. */
+    @Parameter(defaultValue = "512", property = "openapi.generate.parallel")
+    int parallel;
+
+    @Parameter(defaultValue = "false", property = "openapi.skip")
+    boolean skip;
+
+    @Parameter(defaultValue = "${project.build.directory}", readonly = true, required = true)
+    File buildDirectory;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    MavenProject project;
+
+    @Override public void execute() throws MojoExecutionException {
+        if (skip) { getLog().info("Skipping OpenAPI generation"); return; }
+        project.addCompileSourceRoot(outputDirectory.getPath());
+        if (!specDirectory.isDirectory()) { getLog().info("No OpenAPI specs in " + specDirectory); return; }
+
+        GeneratorOptions options;
+        try {
+            options = new GeneratorOptions(TypeMapping.of(types, dateTime), OutputLayout.of(layout, layoutTags),
+                    streaming, caching, parallel);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid OpenAPI generator configuration, " + e.getMessage(), e);
+        }
+
+        try {
+            List<Path> specs;
+            try (Stream<Path> files = Files.list(specDirectory.toPath())) {
+                specs = files.filter(f -> f.getFileName().toString().matches(".*\\.json(\\.gz)?")).sorted()
+                        .collect(Collectors.toList());
+            }
+            String config = "output=" + outputDirectory.getAbsolutePath() + options.config();
+            Path stamp = buildDirectory.toPath().resolve("openapi-maven-plugin").resolve(
+                    Hashing.sha256().hashString(config, UTF_8).toString().substring(0, 16) + ".fingerprint");
+            String fingerprint = fingerprint(specs, config);
+            if (outputDirectory.isDirectory() && Files.exists(stamp)
+                    && fingerprint.equals(new String(Files.readAllBytes(stamp), UTF_8))) {
+                getLog().info("OpenAPI sources are up to date");
+                return;
+            }
+
+            try (GenerationManifest manifest = new GenerationManifest(outputDirectory.toPath(), config);
+                    OutputSink sink = OutputSink.directory(outputDirectory.toPath())) {
+                generate(specs, options, manifest, sink);
+                Set<String> names = specs.stream().map(GenerateMojo::specName).collect(Collectors.toSet());
+                for (String removed : manifest.specs()) {
+                    if (names.contains(removed)) continue;
+                    Main.delete(removed, manifest, sink);
+                    getLog().info("Deleted the sources of the removed OpenAPI spec " + removed);
+                }
+                getLog().info("Generated " + specs.size() + " OpenAPI specs into " + outputDirectory + ", " + sink);
+            }
+            Files.createDirectories(stamp.getParent());
+            Files.write(stamp, fingerprint.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("OpenAPI generation failed", e);
+        }
+    }
+
+    private void generate(List<Path> specs, GeneratorOptions options, GenerationManifest manifest, OutputSink sink)
+            throws MojoExecutionException {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, specs.size())),
+                new ThreadFactoryBuilder().setNameFormat("openapi-generate-%d").setDaemon(true).build());
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Path file : specs) tasks.add(workers.submit(() -> {
+                SpecData spec = new SpecData(specName(file), "0")
+                        .doc(SpecParser.readDoc(Compression.decode(Files.newInputStream(file), null)));
+                Main.generate(spec, options, manifest, sink);
+                return null;
+            }));
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    tasks.get(i).get();
+                } catch (ExecutionException e) {
+                    throw new MojoExecutionException("OpenAPI generation failed for " + specs.get(i), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("OpenAPI generation interrupted", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static String specName(Path spec) {
+        return spec.getFileName().toString().replaceFirst("\\.json(\\.gz)?$", "");
+    }
+
+    private static String fingerprint(List<Path> specs, String config) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(GenerationManifest.GENERATOR_VERSION, UTF_8)
+                .putString(config, UTF_8);
+        for (Path spec : specs) {
+            hasher.putString(spec.getFileName().toString(), UTF_8)
+                    .putLong(Files.size(spec))
+                    .putLong(Files.getLastModifiedTime(spec).toMillis());
+        }
+        return hasher.hash().toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.intendia.openapi.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.intendia.openapi.GenerationManifest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GenerateMojoTest {
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final List<String> logs = new ArrayList<>();
+    private Path specs, output;
+
+    @Before public void specs() throws IOException {
+        specs = tmp.newFolder("openapi").toPath();
+        output = tmp.getRoot().toPath().resolve("target/generated-sources/openapi");
+        for (String name : new String[] { "petstore.json", "other.json" }) {
+            try (InputStream in = GenerateMojoTest.class.getResourceAsStream("/petstore.json")) {
+                Files.copy(in, specs.resolve(name));
+            }
+        }
+    }
+
+    @Test public void skipsTheExecutionIfNothingChanged() throws MojoExecutionException {
+        execute();
+        assertTrue(Files.exists(output.resolve("petstore/Api.java")));
+        assertFalse(logs.contains("OpenAPI sources are up to date"));
+
+        execute();
+        assertTrue(logs.contains("OpenAPI sources are up to date"));
+    }
+
+    @Test public void deletesTheSourcesOfRemovedSpecs() throws MojoExecutionException, IOException {
+        execute();
+        assertTrue(Files.exists(output.resolve("other/Api.java")));
+
+        Files.delete(specs.resolve("other.json"));
+        execute();
+        assertFalse(logs.contains("OpenAPI sources are up to date"));
+        assertFalse(Files.exists(output.resolve("other")));
+        assertTrue(Files.exists(output.resolve("petstore/Api.java")));
+        assertEquals("[petstore]", new GenerationManifest(output, "").specs().toString());
+    }
+
+    private void execute() throws MojoExecutionException {
+        logs.clear();
+        GenerateMojo mojo = new GenerateMojo();
+        mojo.specDirectory = specs.toFile();
+        mojo.outputDirectory = output.toFile();
+        mojo.buildDirectory = new File(tmp.getRoot(), "target");
+        mojo.project = new MavenProject();
+        mojo.types = "legacy";
+        mojo.dateTime = "java.lang.String";
+        mojo.layout = "nested";
+        mojo.parallel = 512;
+        mojo.setLog(new SystemStreamLog() {
+            @Override public void info(CharSequence content) { logs.add(content.toString()); }
+        });
+        mojo.execute();
+    }
+}